@@ -0,0 +1,77 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генераторы данных для бенчмарков.
+ * Каждая запланированная задача занимает первые полчаса своего часа, поэтому вторая половина
+ * часа всегда свободна, а его начало всегда занято. Часы раздаются в случайном порядке,
+ * чтобы индексы не заполнялись только добавлением в конец.
+ */
+public final class BenchData {
+    public static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    public static final Duration SLOT = Duration.ofMinutes(30);
+    private static final long SEED = 42;
+
+    private BenchData() {
+    }
+
+    // Заполняет доску: половина запланированных задач - обычные, половина - подзадачи эпиков
+    public static <T extends TaskManager> T fillBoard(T manager, int boardSize, int subtasksPerEpic) {
+        int[] hours = shuffledHours(boardSize);
+        int subtaskCount = boardSize / 2;
+        Epic epic = null;
+        for (int i = 0; i < boardSize; i++) {
+            LocalDateTime start = START.plusHours(hours[i]);
+            if (i < subtaskCount) {
+                if (i % subtasksPerEpic == 0) {
+                    epic = manager.createEpic(new Epic(0, "Epic " + i, "Description"));
+                }
+                manager.createSubtask(new Subtask(0, "Subtask " + i, "Description", status(i), epic.getId(),
+                        SLOT, start));
+            } else {
+                manager.createTask(new Task(0, "Task " + i, "Description", status(i), SLOT, start));
+            }
+        }
+        return manager;
+    }
+
+    public static List<Task> tasks(int count) {
+        int[] hours = shuffledHours(count);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Task(i + 1, "Task " + i, "Description of task " + i, status(i), SLOT,
+                    START.plusHours(hours[i])));
+        }
+        return tasks;
+    }
+
+    public static LocalDateTime freeSlot(int boardSize, int i) {
+        return START.plusHours(Math.floorMod(i, boardSize)).plus(SLOT);
+    }
+
+    public static LocalDateTime busySlot(int boardSize, int i) {
+        return START.plusHours(Math.floorMod(i, boardSize)).plusMinutes(10);
+    }
+
+    private static int[] shuffledHours(int count) {
+        int[] hours = new int[count];
+        for (int i = 0; i < count; i++) {
+            hours[i] = i;
+        }
+        Random random = new Random(SEED);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = hours[i];
+            hours[i] = hours[j];
+            hours[j] = tmp;
+        }
+        return hours;
+    }
+
+    private static TaskStatus status(int i) {
+        return TaskStatus.values()[i % 3];
+    }
+}
@@ -0,0 +1,25 @@
+import bench.HistoryWorkload;
+
+import java.util.List;
+
+public class HistoryWorkloadImpl implements HistoryWorkload {
+    private HistoryManager history;
+    private List<Task> tasks;
+
+    @Override
+    public void setUp(int historySize) {
+        history = Managers.getDefaultHistory();
+        tasks = BenchData.tasks(historySize);
+        tasks.forEach(history::add);
+    }
+
+    @Override
+    public void add(int i) {
+        history.add(tasks.get(Math.floorMod(i, tasks.size())));
+    }
+
+    @Override
+    public Object history() {
+        return history.getHistory();
+    }
+}
@@ -0,0 +1,32 @@
+import bench.JsonWorkload;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+public class JsonWorkloadImpl implements JsonWorkload {
+    private static final Type TASK_LIST = new TypeToken<List<Task>>() {
+    }.getType();
+
+    private Gson gson;
+    private List<Task> tasks;
+    private String json;
+
+    @Override
+    public void setUp(int listSize) {
+        gson = GsonFactory.createGson();
+        tasks = BenchData.tasks(listSize);
+        json = gson.toJson(tasks);
+    }
+
+    @Override
+    public Object toJson() {
+        return gson.toJson(tasks);
+    }
+
+    @Override
+    public Object fromJson() {
+        return gson.fromJson(json, TASK_LIST);
+    }
+}
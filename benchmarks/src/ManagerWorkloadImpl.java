@@ -0,0 +1,45 @@
+import bench.ManagerWorkload;
+
+import java.util.List;
+
+public class ManagerWorkloadImpl implements ManagerWorkload {
+    private TaskManager manager;
+    private List<Epic> epics;
+    private int boardSize;
+
+    @Override
+    public void setUp(String manager, int boardSize, int subtasksPerEpic) {
+        TaskManager empty = "concurrent".equals(manager) ? Managers.getConcurrentTaskManager() : Managers.getDefault();
+        this.manager = BenchData.fillBoard(empty, boardSize, subtasksPerEpic);
+        this.epics = this.manager.getEpics();
+        this.boardSize = boardSize;
+    }
+
+    @Override
+    public Object createInFreeSlot(int i) {
+        Task task = manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW, BenchData.SLOT,
+                BenchData.freeSlot(boardSize, i)));
+        manager.deleteTask(task.getId());
+        return task;
+    }
+
+    @Override
+    public Object createInBusySlot(int i) {
+        try {
+            return manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW, BenchData.SLOT,
+                    BenchData.busySlot(boardSize, i)));
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Override
+    public Object prioritized() {
+        return manager.getPrioritizedTasks();
+    }
+
+    @Override
+    public Object epicSubtasks(int i) {
+        return manager.getEpicSubtasks(epics.get(Math.floorMod(i, epics.size())).getId());
+    }
+}
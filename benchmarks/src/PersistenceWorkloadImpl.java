@@ -0,0 +1,43 @@
+import bench.PersistenceWorkload;
+
+import java.io.File;
+
+public class PersistenceWorkloadImpl implements PersistenceWorkload {
+    private File dir;
+    private File file;
+    private FileBackedTaskManager manager;
+
+    @Override
+    public void setUp(File dir, int boardSize, boolean binary) {
+        this.dir = dir;
+        this.file = new File(dir, "tasks.csv");
+        // каждое изменение при заполнении не сохраняется - снимок пишется один раз в конце
+        manager = new FileBackedTaskManager(Managers.getDefaultHistory(), file, 0,
+                DurabilityPolicy.everyOperations(Integer.MAX_VALUE));
+        manager.setBinarySnapshot(binary);
+        BenchData.fillBoard(manager, boardSize, 10);
+        manager.save();
+    }
+
+    @Override
+    public void save() {
+        manager.save();
+    }
+
+    @Override
+    public Object load() {
+        return FileBackedTaskManager.loadFromFile(file);
+    }
+
+    @Override
+    public void tearDown() {
+        manager.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,45 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int historySize;
+
+    private HistoryWorkload workload;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        workload = Workloads.load(HistoryWorkload.class);
+        workload.setUp(historySize);
+    }
+
+    @Benchmark
+    public void add() {
+        workload.add(counter++);
+    }
+
+    @Benchmark
+    public Object history() {
+        return workload.history();
+    }
+}
@@ -0,0 +1,10 @@
+package bench;
+
+public interface HistoryWorkload {
+    void setUp(int historySize);
+
+    // повторный просмотр задачи переносит ее в конец истории
+    void add(int i);
+
+    Object history();
+}
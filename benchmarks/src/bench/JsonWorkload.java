@@ -0,0 +1,9 @@
+package bench;
+
+public interface JsonWorkload {
+    void setUp(int listSize);
+
+    Object toJson();
+
+    Object fromJson();
+}
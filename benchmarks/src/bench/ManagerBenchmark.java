@@ -0,0 +1,61 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManagerBenchmark {
+    @Param({"memory", "concurrent"})
+    public String manager;
+
+    @Param({"1000", "10000", "100000"})
+    public int boardSize;
+
+    @Param({"10"})
+    public int subtasksPerEpic;
+
+    private ManagerWorkload workload;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        workload = Workloads.load(ManagerWorkload.class);
+        workload.setUp(manager, boardSize, subtasksPerEpic);
+    }
+
+    @Benchmark
+    public Object createInFreeSlot() {
+        return workload.createInFreeSlot(counter++);
+    }
+
+    @Benchmark
+    public Object createInBusySlot() {
+        return workload.createInBusySlot(counter++);
+    }
+
+    @Benchmark
+    public Object prioritized() {
+        return workload.prioritized();
+    }
+
+    @Benchmark
+    public Object epicSubtasks() {
+        return workload.epicSubtasks(counter++);
+    }
+}
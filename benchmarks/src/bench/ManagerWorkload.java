@@ -0,0 +1,15 @@
+package bench;
+
+public interface ManagerWorkload {
+    void setUp(String manager, int boardSize, int subtasksPerEpic);
+
+    // создает задачу в свободном слоте и сразу удаляет ее, чтобы размер доски не менялся
+    Object createInFreeSlot(int i);
+
+    // попытка занять уже занятый слот - отклоняется проверкой пересечений
+    Object createInBusySlot(int i);
+
+    Object prioritized();
+
+    Object epicSubtasks(int i);
+}
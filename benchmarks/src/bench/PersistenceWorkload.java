@@ -0,0 +1,13 @@
+package bench;
+
+import java.io.File;
+
+public interface PersistenceWorkload {
+    void setUp(File dir, int boardSize, boolean binary);
+
+    void save();
+
+    Object load();
+
+    void tearDown();
+}
@@ -0,0 +1,19 @@
+package bench;
+
+/**
+ * JMH не поддерживает бенчмарки в пакете по умолчанию, а из именованного пакета нельзя сослаться
+ * на классы проекта. Поэтому сами замеряемые операции реализованы в пакете по умолчанию
+ * (классы с суффиксом Workload), а бенчмарки получают их через интерфейсы.
+ */
+final class Workloads {
+    private Workloads() {
+    }
+
+    static <T> T load(Class<T> type) {
+        try {
+            return type.cast(Class.forName(type.getSimpleName() + "Impl").getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Реализация " + type.getSimpleName() + " не найдена", e);
+        }
+    }
+}
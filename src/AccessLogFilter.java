@@ -0,0 +1,72 @@
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Строка журнала доступа на каждый запрос: метод, путь, статус, байты тела и время обработки.
+ * При большом потоке запросов успешные ответы можно логировать выборочно - каждый sampleEvery-й,
+ * ответы с ошибками (4xx, 5xx) пишутся всегда.
+ */
+public class AccessLogFilter extends Filter {
+    private final AsyncLogger logger;
+    private final int sampleEvery;
+    private final AtomicLong successCounter = new AtomicLong();
+
+    public AccessLogFilter(AsyncLogger logger, int sampleEvery) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("Частота выборки должна быть положительной");
+        }
+        this.logger = logger;
+        this.sampleEvery = sampleEvery;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        CountingStream body = new CountingStream(exchange.getResponseBody());
+        exchange.setStreams(null, body);
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            int status = exchange.getResponseCode();
+            if (status >= 400 || status < 0 || successCounter.getAndIncrement() % sampleEvery == 0) {
+                String query = exchange.getRequestURI().getRawQuery();
+                logger.info("access",
+                        "method", exchange.getRequestMethod(),
+                        "path", exchange.getRequestURI().getRawPath() + (query == null ? "" : "?" + query),
+                        "status", status,
+                        "bytes", body.count,
+                        "latency_us", (System.nanoTime() - start) / 1000,
+                        "remote", exchange.getRemoteAddress().getAddress().getHostAddress());
+            }
+        }
+    }
+
+    @Override
+    public String description() {
+        return "access log";
+    }
+
+    private static class CountingStream extends FilterOutputStream {
+        private long count;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            out.write(bytes, off, len);
+            count += len;
+        }
+    }
+}
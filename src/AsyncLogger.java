@@ -0,0 +1,180 @@
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронный логгер со структурированными строками вида "время LEVEL событие ключ=значение ...".
+ * Вызывающий поток только кладет запись в кольцевой буфер (ArrayBlockingQueue на массиве),
+ * форматирование и вывод делает фоновый поток. Если буфер полон, запись отбрасывается и учитывается
+ * в счетчике - запрос никогда не ждет консоль.
+ */
+public class AsyncLogger implements AutoCloseable {
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR
+    }
+
+    private static final AsyncLogger DEFAULT = new AsyncLogger(System.out, 8192,
+            Level.valueOf(System.getProperty("kanban.log.level", "INFO")));
+
+    private final PrintStream out;
+    private final BlockingQueue<Record> ring;
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Level level;
+    private volatile boolean closed;
+
+    public AsyncLogger(PrintStream out, int capacity, Level level) {
+        this.out = out;
+        this.ring = new ArrayBlockingQueue<>(capacity);
+        this.level = level;
+        this.writer = new Thread(this::drainLoop, "async-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Общий логгер процесса; уровень задается свойством kanban.log.level
+    public static AsyncLogger getDefault() {
+        return DEFAULT;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(this.level) >= 0;
+    }
+
+    public void debug(String event, Object... fields) {
+        log(Level.DEBUG, event, null, fields);
+    }
+
+    public void info(String event, Object... fields) {
+        log(Level.INFO, event, null, fields);
+    }
+
+    public void warn(String event, Object... fields) {
+        log(Level.WARN, event, null, fields);
+    }
+
+    public void error(String event, Throwable error, Object... fields) {
+        log(Level.ERROR, event, error, fields);
+    }
+
+    // fields - пары ключ, значение; форматируются уже в фоновом потоке
+    public void log(Level level, String event, Throwable error, Object... fields) {
+        if (closed || !isEnabled(level)) {
+            return;
+        }
+        if (!ring.offer(new Record(System.currentTimeMillis(), level, event, error, fields))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // Дописывает накопленные записи и останавливает фоновый поток
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<Record> batch = new ArrayList<>();
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                Record first = ring.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                if (closed) {
+                    break;
+                }
+            }
+            ring.drainTo(batch);
+            for (Record record : batch) {
+                out.println(record.format());
+            }
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                out.println(new Record(System.currentTimeMillis(), Level.WARN, "log_dropped", null,
+                        new Object[]{"records", drops - reportedDrops}).format());
+                reportedDrops = drops;
+            }
+            if (!batch.isEmpty()) {
+                out.flush();
+                batch.clear();
+            }
+        }
+        ring.drainTo(batch);
+        batch.forEach(record -> out.println(record.format()));
+        out.flush();
+    }
+
+    private static class Record {
+        private final long time;
+        private final Level level;
+        private final String event;
+        private final Throwable error;
+        private final Object[] fields;
+
+        Record(long time, Level level, String event, Throwable error, Object[] fields) {
+            this.time = time;
+            this.level = level;
+            this.event = event;
+            this.error = error;
+            this.fields = fields;
+        }
+
+        String format() {
+            StringBuilder line = new StringBuilder(128)
+                    .append(LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()))
+                    .append(' ').append(level)
+                    .append(' ').append(event);
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                line.append(' ').append(fields[i]).append('=');
+                appendValue(line, String.valueOf(fields[i + 1]));
+            }
+            if (error != null) {
+                line.append(" error=");
+                appendValue(line, String.valueOf(error.getMessage()));
+                StringWriter trace = new StringWriter();
+                error.printStackTrace(new PrintWriter(trace));
+                line.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+            }
+            return line.toString();
+        }
+
+        // значения с пробелами и кавычками берутся в кавычки, чтобы строку можно было разобрать
+        private static void appendValue(StringBuilder line, String value) {
+            if (!value.isEmpty() && value.indexOf(' ') < 0 && value.indexOf('"') < 0 && value.indexOf('=') < 0) {
+                line.append(value);
+                return;
+            }
+            line.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\"")
+                    .replace("\n", "\\n")).append('"');
+        }
+    }
+}
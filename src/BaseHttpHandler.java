@@ -1,8 +1,73 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
-public class BaseHttpHandler {
+public class BaseHttpHandler implements HttpHandler {
+    // курсор следующей страницы; заголовок есть, только если после страницы остались элементы
+    protected static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // ответы короче порога не сжимаются: выигрыш меньше накладных расходов gzip
+    protected static final int MIN_COMPRESS_BYTES = 1024;
+    private static final Gson PRETTY_GSON = GsonFactory.createPrettyGson();
+    // версии менеджера начинаются заново после перезапуска, поэтому ETag содержит метку запуска
+    private static final String INSTANCE_TAG = Long.toString(System.currentTimeMillis(), 36);
+
+    // null - кэш ответов выключен
+    protected final ResponseCache cache;
+    // маршруты регистрируются в конструкторах наследников
+    protected final Router router = new Router();
+
+    public BaseHttpHandler() {
+        this(null);
+    }
+
+    public BaseHttpHandler(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Router.Match match = router.match(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+        try {
+            if (match.getRoute() != null) {
+                match.getRoute().handle(exchange, match.getParams());
+            } else if (match.getAllow() != null) {
+                sendMethodNotAllowed(exchange, match.getAllow());
+            } else {
+                sendNotFound(exchange);
+            }
+        } catch (JsonParseException e) {
+            sendBadRequest(exchange, "Invalid JSON format");
+        } catch (IllegalArgumentException e) {
+            if (e.getMessage() != null && e.getMessage().contains("пересекается")) {
+                sendHasInteractions(exchange);
+            } else {
+                sendBadRequest(exchange, e.getMessage());
+            }
+        } catch (Exception e) {
+            AsyncLogger.getDefault().error("handler_error", e,
+                    "handler", getClass().getSimpleName(),
+                    "method", exchange.getRequestMethod(),
+                    "path", exchange.getRequestURI().getRawPath());
+            sendInternalError(exchange, e.getMessage());
+        }
+    }
 
     protected void sendText(HttpExchange exchange, String text, int statusCode) throws IOException {
         if (text == null) {
@@ -10,9 +75,243 @@ public class BaseHttpHandler {
         }
         byte[] response = text.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(statusCode, response.length);
-        exchange.getResponseBody().write(response);
-        exchange.getResponseBody().close();
+        try (OutputStream body = responseBody(exchange, statusCode)) {
+            body.write(response);
+        }
+    }
+
+    // Отдает список потоком: элементы сериализуются по одному прямо в тело ответа,
+    // поэтому целиком JSON в памяти не собирается; длинный ответ уходит chunked
+    protected void sendJsonList(HttpExchange exchange, Gson gson, Iterable<?> items) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        Gson output = gsonFor(exchange, gson);
+        try (JsonWriter writer = output.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(responseBody(exchange, 200), StandardCharsets.UTF_8)))) {
+            writer.beginArray();
+            for (Object item : items) {
+                output.toJson(item, item.getClass(), writer);
+            }
+            writer.endArray();
+        }
+    }
+
+    // Сущность через кэш ответов: сериализация только при промахе
+    protected void sendCachedJson(HttpExchange exchange, Gson gson, String key, Task item) throws IOException {
+        if (cache == null || isPretty(exchange)) {
+            sendSuccess(exchange, gsonFor(exchange, gson).toJson(item));
+            return;
+        }
+        // версия читается до сериализации, как и для ETag
+        long version = item.getVersion();
+        ResponseCache.Entry entry = cache.get(key, version);
+        if (entry == null) {
+            entry = cache.put(key, version, gson.toJson(item).getBytes(StandardCharsets.UTF_8));
+        }
+        sendCached(exchange, entry);
+    }
+
+    // Список через кэш ответов; слишком большой список отдается потоком, как без кэша
+    protected void sendCachedList(HttpExchange exchange, Gson gson, String key, long version,
+                                  Supplier<? extends Iterable<?>> items) throws IOException {
+        if (cache == null || isPretty(exchange)) {
+            sendJsonList(exchange, gson, items.get());
+            return;
+        }
+        ResponseCache.Entry entry = cache.get(key, version);
+        if (entry != null && entry.getBody() == null) {
+            sendJsonList(exchange, gson, items.get());
+            return;
+        }
+        if (entry == null) {
+            Iterable<?> list = items.get();
+            BoundedBuffer buffer = new BoundedBuffer(cache);
+            try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8))) {
+                writer.beginArray();
+                for (Object item : list) {
+                    gson.toJson(item, item.getClass(), writer);
+                }
+                writer.endArray();
+            } catch (BoundedBuffer.Overflow e) {
+                cache.putOversized(key, version);
+                sendJsonList(exchange, gson, list);
+                return;
+            }
+            entry = cache.put(key, version, buffer.toByteArray());
+        }
+        sendCached(exchange, entry);
+    }
+
+    private void sendCached(HttpExchange exchange, ResponseCache.Entry entry) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        String encoding = CompressingResponseStream.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        if ("gzip".equals(encoding) && entry.getGzip() != null) {
+            exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, entry.getGzip().length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(entry.getGzip());
+            }
+            return;
+        }
+        try (OutputStream body = responseBody(exchange, 200)) {
+            body.write(entry.getBody());
+        }
+    }
+
+    // Страница списка: запрашиваем на элемент больше limit, чтобы узнать, есть ли продолжение
+    protected <T> void sendPage(HttpExchange exchange, Gson gson, int limit, IntFunction<List<T>> fetch,
+                                Function<T, String> cursor) throws IOException {
+        List<T> page = fetch.apply(limit == Integer.MAX_VALUE ? limit : limit + 1);
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            exchange.getResponseHeaders().add(NEXT_CURSOR_HEADER, cursor.apply(page.get(limit - 1)));
+        }
+        sendJsonList(exchange, gson, page);
+    }
+
+    // Тело ответа со сжатием по Accept-Encoding клиента
+    protected OutputStream responseBody(HttpExchange exchange, int statusCode) {
+        String encoding = CompressingResponseStream.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        return new CompressingResponseStream(exchange, statusCode, encoding, MIN_COMPRESS_BYTES);
+    }
+
+    // ?pretty - отформатированный JSON, по умолчанию компактный
+    protected Gson gsonFor(HttpExchange exchange, Gson gson) {
+        return isPretty(exchange) ? PRETTY_GSON : gson;
+    }
+
+    protected boolean isPretty(HttpExchange exchange) {
+        return queryParams(exchange).containsKey("pretty");
+    }
+
+    // Условный GET: если версия у клиента актуальна, отвечает 304 без сериализации.
+    // Версию нужно читать до данных - тогда ETag никогда не окажется новее отданного содержимого.
+    protected boolean notModified(HttpExchange exchange, long version) throws IOException {
+        // слабый ETag: сжатое и отформатированное представления семантически совпадают
+        String etag = "W/\"" + INSTANCE_TAG + "-" + version + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || ("W/" + tag).equals(etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    // Параметр limit: без него отдается вся коллекция
+    protected int limitParam(Map<String, String> params) {
+        String value = params.get("limit");
+        if (value == null) {
+            return Integer.MAX_VALUE;
+        }
+        int limit = intParam("limit", value);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Parameter limit must be positive");
+        }
+        return limit;
+    }
+
+    // ?status=NEW|IN_PROGRESS|DONE
+    protected TaskStatus statusParam(String value) {
+        try {
+            TaskStatus status = TaskStatus.parse(value);
+            if (status != null) {
+                return status;
+            }
+        } catch (IllegalArgumentException e) {
+            // сообщение ниже
+        }
+        throw new IllegalArgumentException("Invalid parameter status: " + value);
+    }
+
+    // Условия списка: ?status=&epic=&from=&to=&q=&order=id|start; null - условий нет, отдается обычный список
+    protected TaskQuery taskQueryParam(TaskType type, Map<String, String> params) {
+        if (!params.containsKey("status") && !params.containsKey("epic") && !params.containsKey("from")
+                && !params.containsKey("to") && !params.containsKey("q") && !params.containsKey("order")) {
+            return null;
+        }
+        TaskQuery query = TaskQuery.of(type);
+        if (params.containsKey("status")) {
+            query = query.withStatus(statusParam(params.get("status")));
+        }
+        if (params.containsKey("epic")) {
+            if (type != TaskType.SUBTASK) {
+                throw new IllegalArgumentException("Parameter epic applies to subtasks only");
+            }
+            query = query.withEpic(intParam("epic", params.get("epic")));
+        }
+        LocalDateTime from = dateTimeParam("from", params.get("from"));
+        LocalDateTime to = dateTimeParam("to", params.get("to"));
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Parameter from must be before to");
+        }
+        query = query.withStartBetween(from, to).withText(params.get("q"));
+        String order = params.getOrDefault("order", "id");
+        if ("start".equals(order)) {
+            if (params.containsKey("after")) {
+                throw new IllegalArgumentException("Parameter after requires order=id");
+            }
+            query = query.withOrder(TaskQuery.Order.START);
+        } else if (!"id".equals(order)) {
+            throw new IllegalArgumentException("Invalid parameter order: " + order);
+        }
+        if (params.containsKey("after")) {
+            query = query.withAfter(intParam("after", params.get("after")));
+        }
+        return query;
+    }
+
+    // Результат запроса страницей: при порядке по id - с курсором, по времени курсора нет и отдается первая страница
+    protected void sendQuery(HttpExchange exchange, Gson gson, TaskManager taskManager, TaskQuery query, int limit)
+            throws IOException {
+        if (query.getOrder() == TaskQuery.Order.ID) {
+            sendPage(exchange, gson, limit, size -> taskManager.query(query.withLimit(size)),
+                    item -> String.valueOf(item.getId()));
+        } else {
+            sendJsonList(exchange, gson, taskManager.query(query.withLimit(limit)));
+        }
+    }
+
+    // ISO_LOCAL_DATE_TIME, как и в JSON задач; null - параметр не задан
+    protected LocalDateTime dateTimeParam(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid parameter " + name + ": " + value);
+        }
+    }
+
+    protected int intParam(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid parameter " + name + ": " + value);
+        }
     }
 
     protected void sendSuccess(HttpExchange exchange, String text) throws IOException {
@@ -27,6 +326,11 @@ public class BaseHttpHandler {
         sendText(exchange, "{\"error\": \"Not Found\"}", 404);
     }
 
+    protected void sendMethodNotAllowed(HttpExchange exchange, String allow) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allow);
+        sendText(exchange, "{\"error\": \"Method " + exchange.getRequestMethod() + " not allowed\"}", 405);
+    }
+
     protected void sendHasInteractions(HttpExchange exchange) throws IOException {
         sendText(exchange, "{\"error\": \"Task has time interactions with existing tasks\"}", 406);
     }
@@ -52,4 +356,34 @@ public class BaseHttpHandler {
                 .replace("\r", "\\r")
                 .replace("\t", "\\t");
     }
-}
\ No newline at end of file
+
+    // Буфер сериализации, который перестает расти, когда ответ уже не поместится в кэш
+    private static class BoundedBuffer extends ByteArrayOutputStream {
+        private final ResponseCache cache;
+
+        BoundedBuffer(ResponseCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int off, int len) {
+            if (!cache.fits(count + len)) {
+                throw new Overflow();
+            }
+            super.write(bytes, off, len);
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        private static class Overflow extends RuntimeException {
+            private static final long serialVersionUID = 1L;
+
+            Overflow() {
+                super(null, null, false, false);
+            }
+        }
+    }
+}
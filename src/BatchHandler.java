@@ -0,0 +1,219 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * POST /batch - несколько операций за один запрос.
+ * Тело - массив вида [{"op": "create", "type": "task", "data": {...}}, {"op": "delete", "type": "epic", "id": 3}].
+ * Все операции выполняются в одной транзакции менеджера с одним сбросом на диск; ошибка отдельной операции
+ * (пересечение, неизвестный id) не отменяет остальные и возвращается в ее элементе ответа со своим статусом.
+ * Существование сущности проверяется по срезу менеджера, чтобы проверка не попадала в историю просмотров.
+ */
+public class BatchHandler extends BaseHttpHandler {
+    // пакет обрабатывается под блокировкой записи, поэтому его размер ограничен
+    static final int MAX_OPERATIONS = 1000;
+
+    private final TaskManager taskManager;
+    private final Gson gson;
+
+    public BatchHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        this.gson = GsonFactory.createGson();
+
+        router.post("/batch", (exchange, params) -> handleBatch(exchange));
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        String body = readText(exchange);
+        if (body == null || body.trim().isEmpty()) {
+            sendBadRequest(exchange, "Empty request body");
+            return;
+        }
+        JsonElement parsed = JsonParser.parseString(body);
+        if (!parsed.isJsonArray()) {
+            sendBadRequest(exchange, "Batch must be a JSON array");
+            return;
+        }
+        JsonArray operations = parsed.getAsJsonArray();
+        if (operations.size() > MAX_OPERATIONS) {
+            sendBadRequest(exchange, "Batch is limited to " + MAX_OPERATIONS + " operations");
+            return;
+        }
+
+        List<Result> results = taskManager.inTransaction(() -> {
+            List<Result> applied = new ArrayList<>(operations.size());
+            for (JsonElement operation : operations) {
+                applied.add(execute(operation));
+            }
+            return applied;
+        });
+        sendSuccess(exchange, gsonFor(exchange, gson).toJson(results));
+    }
+
+    private Result execute(JsonElement element) {
+        try {
+            if (!element.isJsonObject()) {
+                return Result.error(400, "Operation must be a JSON object");
+            }
+            JsonObject operation = element.getAsJsonObject();
+            String op = stringField(operation, "op");
+            TaskType type = typeOf(stringField(operation, "type"));
+            switch (op) {
+                case "create":
+                    return create(type, dataOf(operation));
+                case "update":
+                    return update(type, dataOf(operation));
+                case "delete":
+                    return delete(type, idOf(operation));
+                default:
+                    return Result.error(400, "Unknown operation: " + op);
+            }
+        } catch (JsonParseException e) {
+            return Result.error(400, "Invalid JSON format");
+        } catch (IllegalArgumentException e) {
+            // как и для одиночных запросов: пересечение по времени - 406
+            boolean overlap = e.getMessage() != null && e.getMessage().contains("пересекается");
+            return Result.error(overlap ? 406 : 400, e.getMessage());
+        } catch (RuntimeException e) {
+            // сбой одной операции (например, записи на диск) не прерывает пакет
+            return Result.error(500, e.getMessage() != null ? e.getMessage() : "Internal Server Error");
+        }
+    }
+
+    private Result create(TaskType type, JsonObject data) {
+        switch (type) {
+            case EPIC:
+                Epic epic = gson.fromJson(data, Epic.class);
+                return Result.ok(201, gson.toJsonTree(taskManager.createEpic(
+                        new Epic(0, epic.getTitle(), epic.getDescription()))));
+            case SUBTASK:
+                Subtask subtask = taskManager.createSubtask(gson.fromJson(data, Subtask.class));
+                if (subtask == null) {
+                    return Result.error(404, "Epic not found");
+                }
+                return Result.ok(201, gson.toJsonTree(subtask));
+            default:
+                return Result.ok(201, gson.toJsonTree(taskManager.createTask(gson.fromJson(data, Task.class))));
+        }
+    }
+
+    private Result update(TaskType type, JsonObject data) {
+        switch (type) {
+            case EPIC:
+                Epic epic = gson.fromJson(data, Epic.class);
+                if (taskManager.snapshot().getEpic(epic.getId()) == null) {
+                    return Result.error(404, "Epic not found");
+                }
+                // эпик обновляется на месте, подзадачи и время остаются прежними
+                taskManager.updateEpic(epic);
+                return Result.ok(200, gson.toJsonTree(taskManager.snapshot().getEpic(epic.getId())));
+            case SUBTASK:
+                Subtask subtask = gson.fromJson(data, Subtask.class);
+                if (taskManager.snapshot().getSubtask(subtask.getId()) == null) {
+                    return Result.error(404, "Subtask not found");
+                }
+                taskManager.updateSubtask(subtask);
+                return Result.ok(200, gson.toJsonTree(subtask));
+            default:
+                Task task = gson.fromJson(data, Task.class);
+                if (taskManager.snapshot().getTask(task.getId()) == null) {
+                    return Result.error(404, "Task not found");
+                }
+                taskManager.updateTask(task);
+                return Result.ok(200, gson.toJsonTree(task));
+        }
+    }
+
+    private Result delete(TaskType type, int id) {
+        switch (type) {
+            case EPIC:
+                if (taskManager.snapshot().getEpic(id) == null) {
+                    return Result.error(404, "Epic not found");
+                }
+                taskManager.deleteEpic(id);
+                break;
+            case SUBTASK:
+                if (taskManager.snapshot().getSubtask(id) == null) {
+                    return Result.error(404, "Subtask not found");
+                }
+                taskManager.deleteSubtask(id);
+                break;
+            default:
+                if (taskManager.snapshot().getTask(id) == null) {
+                    return Result.error(404, "Task not found");
+                }
+                taskManager.deleteTask(id);
+        }
+        Result result = new Result(200);
+        result.id = id;
+        return result;
+    }
+
+    private static TaskType typeOf(String type) {
+        switch (type) {
+            case "task":
+                return TaskType.TASK;
+            case "epic":
+                return TaskType.EPIC;
+            case "subtask":
+                return TaskType.SUBTASK;
+            default:
+                throw new IllegalArgumentException("Unknown type: " + type);
+        }
+    }
+
+    private static String stringField(JsonObject operation, String name) {
+        JsonElement value = operation.get(name);
+        if (value == null || !value.isJsonPrimitive()) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value.getAsString();
+    }
+
+    private static JsonObject dataOf(JsonObject operation) {
+        JsonElement data = operation.get("data");
+        if (data == null || !data.isJsonObject()) {
+            throw new IllegalArgumentException("Missing field: data");
+        }
+        return data.getAsJsonObject();
+    }
+
+    private static int idOf(JsonObject operation) {
+        try {
+            return Integer.parseInt(stringField(operation, "id"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id: " + operation.get("id"));
+        }
+    }
+
+    // Элемент ответа: статус операции и либо сущность после изменения, либо текст ошибки
+    private static class Result {
+        private final int status;
+        private Integer id;
+        private JsonElement data;
+        private String error;
+
+        Result(int status) {
+            this.status = status;
+        }
+
+        static Result ok(int status, JsonElement data) {
+            Result result = new Result(status);
+            result.data = data;
+            return result;
+        }
+
+        static Result error(int status, String error) {
+            Result result = new Result(status);
+            result.error = error;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Двоичный снимок состояния менеджера.
+ *
+ * Формат (big-endian): заголовок MAGIC, VERSION, число записей; затем записи с фиксированной частью
+ * (тип, id, epicId, продолжительность в минутах, начало в секундах эпохи UTC и наносекундах)
+ * и строками title/description/status в UTF-8 с префиксом длины (-1 - null).
+ * Эпики пишутся раньше подзадач.
+ * Начало хранится с секундами и наносекундами, а не в минутах эпохи: CSV-снимок сохраняет время
+ * без округления, и конвертация между форматами не должна его терять.
+ */
+public class BinarySnapshot {
+    static final int MAGIC = 0x4B4E4253; // "KNBS"
+    static final int VERSION = 1;
+
+    private static final byte TASK = 1;
+    private static final byte EPIC = 2;
+    private static final byte SUBTASK = 3;
+    private static final long NONE = Long.MIN_VALUE;
+
+    private BinarySnapshot() {
+    }
+
+    public static boolean isBinary(File file) {
+        if (file.length() < 4) {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return raf.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Файл заменяется атомарно: при сбое записи на диске остается прежний снимок
+    public static void write(File file, Collection<Task> tasks, Collection<Epic> epics,
+                             Collection<Subtask> subtasks, boolean fsync) throws IOException {
+        FileBackedTaskManager.writeAtomically(file, fsync, out -> write(out, tasks, epics, subtasks));
+    }
+
+    public static void write(OutputStream target, Collection<Task> tasks, Collection<Epic> epics,
+                             Collection<Subtask> subtasks) throws IOException {
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(tasks.size() + epics.size() + subtasks.size());
+        for (Task task : tasks) {
+            writeRecord(out, TASK, task, 0);
+        }
+        for (Epic epic : epics) {
+            writeRecord(out, EPIC, epic, 0);
+        }
+        for (Subtask subtask : subtasks) {
+            writeRecord(out, SUBTASK, subtask, subtask.getEpicId());
+        }
+        out.flush();
+    }
+
+    public static void read(File file, Consumer<Task> consumer) throws IOException {
+        ByteBuffer buffer = readFully(file);
+        try {
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                throw new IOException("Файл не является двоичным снимком: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия снимка: " + version);
+            }
+            int count = buffer.getInt();
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                byte type = buffer.get();
+                int id = buffer.getInt();
+                int epicId = buffer.getInt();
+                long minutes = buffer.getLong();
+                long epochSecond = buffer.getLong();
+                int nano = buffer.getInt();
+                String title = readString(buffer, scratch);
+                String description = readString(buffer, scratch);
+                TaskStatus status = TaskStatus.parse(readString(buffer, scratch));
+
+                Duration duration = minutes == NONE ? null : Duration.ofMinutes(minutes);
+                LocalDateTime startTime = epochSecond == NONE ? null
+                        : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+                switch (type) {
+                    case TASK:
+                        consumer.accept(new Task(id, title, description, status, duration, startTime));
+                        break;
+                    case EPIC:
+                        Epic epic = new Epic(id, title, description, status);
+                        epic.setDuration(duration);
+                        epic.setStartTime(startTime);
+                        consumer.accept(epic);
+                        break;
+                    case SUBTASK:
+                        consumer.accept(new Subtask(id, title, description, status, epicId, duration, startTime));
+                        break;
+                    default:
+                        throw new IOException("Неизвестный тип записи: " + type);
+                }
+            }
+        } catch (ManagerSaveException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // BufferUnderflowException и подобные - файл обрезан или поврежден
+            throw new ManagerSaveException("Поврежденный снимок: " + file, e);
+        }
+    }
+
+    // Читает файл в буфер в куче: отображение в память держало бы файл до сборки мусора
+    private static ByteBuffer readFully(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Снимок слишком большой: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // читаем до конца файла
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    // Конвертирует CSV-файл менеджера в двоичный снимок
+    public static void convert(File csvFile, File binaryFile) throws IOException {
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(csvFile);
+        BoardSnapshot snapshot = manager.snapshot();
+        write(binaryFile, snapshot.getTasks(), snapshot.getEpics(), snapshot.getSubtasks(), false);
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, Task task, int epicId) throws IOException {
+        out.writeByte(type);
+        out.writeInt(task.getId());
+        out.writeInt(epicId);
+        out.writeLong(task.getDuration() != null ? task.getDuration().toMinutes() : NONE);
+        LocalDateTime startTime = task.getStartTime();
+        out.writeLong(startTime != null ? startTime.toEpochSecond(ZoneOffset.UTC) : NONE);
+        out.writeInt(startTime != null ? startTime.getNano() : 0);
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        writeString(out, task.getStatus() == null ? null : task.getStatus().name());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        // длина берется из файла: поврежденное значение не должно приводить к огромному выделению памяти
+        if (length > buffer.remaining()) {
+            throw new ManagerSaveException("Поврежденный снимок: длина строки " + length
+                    + " больше остатка файла " + buffer.remaining(), null);
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.List;
+
+/**
+ * Согласованный срез доски: задачи, эпики, подзадачи и приоритетный список на одной версии менеджера.
+ * Срез только ссылается на неизменяемые версии коллекций, поэтому берется за O(1), читается без блокировок
+ * и не меняется, пока писатели создают следующие версии.
+ */
+public class BoardSnapshot {
+    private final PersistentSortedMap<Integer, Task> tasks;
+    private final PersistentSortedMap<Integer, Epic> epics;
+    private final PersistentSortedMap<Integer, Subtask> subtasks;
+    private final PersistentSortedSet<Task> prioritized;
+    private final long version;
+
+    public BoardSnapshot(PersistentSortedMap<Integer, Task> tasks, PersistentSortedMap<Integer, Epic> epics,
+                         PersistentSortedMap<Integer, Subtask> subtasks, PersistentSortedSet<Task> prioritized,
+                         long version) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.prioritized = prioritized;
+        this.version = version;
+    }
+
+    // списки - представления только для чтения, по возрастанию id
+    public List<Task> getTasks() {
+        return tasks.values();
+    }
+
+    public List<Epic> getEpics() {
+        return epics.values();
+    }
+
+    public List<Subtask> getSubtasks() {
+        return subtasks.values();
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        return prioritized.asList();
+    }
+
+    public Task getTask(int id) {
+        return tasks.get(id);
+    }
+
+    public Epic getEpic(int id) {
+        return epics.get(id);
+    }
+
+    public Subtask getSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    // версия менеджера, на которой сделан срез
+    public long getVersion() {
+        return version;
+    }
+}
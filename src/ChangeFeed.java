@@ -0,0 +1,133 @@
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Рассылка изменений менеджера подписчикам /events в формате Server-Sent Events.
+ * Кадр события строится один раз на изменение и раздается всем подписчикам, JSON сущности - только если
+ * кто-то подписан с payload. У каждого подписчика свой ограниченный буфер: если он переполнен, накопленные
+ * события выбрасываются и подписчик получает resync - клиент перечитывает списки, а менеджер не ждет сеть.
+ */
+public class ChangeFeed implements Consumer<TaskChange> {
+    // клиенту нужно перечитать состояние: часть событий пропущена
+    static final byte[] RESYNC = "event: resync\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+    // подписка закрыта, поток ответа нужно завершить
+    static final byte[] CLOSED = new byte[0];
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Gson gson = GsonFactory.createGson();
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger payloadSubscribers = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ChangeFeed(int bufferSize, int maxSubscribers) {
+        if (bufferSize < 1 || maxSubscribers < 1) {
+            throw new IllegalArgumentException("Размер буфера и число подписчиков должны быть положительными");
+        }
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    // null, если достигнут предел подписчиков или рассылка остановлена
+    public synchronized Subscription subscribe(boolean withPayload) {
+        if (closed || subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        Subscription subscription = new Subscription(withPayload);
+        if (withPayload) {
+            payloadSubscribers.incrementAndGet();
+        }
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Вызывается внутри изменяющей операции, поэтому только раскладывает готовые кадры по буферам
+    @Override
+    public void accept(TaskChange change) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String event = change.getKind().name().toLowerCase();
+        String meta = "{\"type\":\"" + change.getType().name().toLowerCase() + "\",\"id\":" + change.getId()
+                + ",\"version\":" + change.getVersion();
+        byte[] plain = frame(change.getVersion(), event, meta + "}");
+        byte[] full = plain;
+        boolean hasPayload = change.getKind() == TaskChange.Kind.CREATED
+                || change.getKind() == TaskChange.Kind.UPDATED;
+        if (hasPayload && payloadSubscribers.get() > 0) {
+            // сериализуем здесь, пока сущность не может измениться
+            full = frame(change.getVersion(), event, meta + ",\"data\":" + gson.toJson(change.getItem()) + "}");
+        }
+        for (Subscription subscription : subscribers) {
+            subscription.offer(subscription.withPayload ? full : plain);
+        }
+    }
+
+    // Завершает все подписки; новые не принимаются
+    public synchronized void close() {
+        closed = true;
+        subscribers.forEach(Subscription::close);
+    }
+
+    private static byte[] frame(long version, String event, String data) {
+        return ("id: " + version + "\nevent: " + event + "\ndata: " + data + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final BlockingQueue<byte[]> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final boolean withPayload;
+        private volatile boolean active = true;
+        private volatile int resyncs;
+
+        private Subscription(boolean withPayload) {
+            this.withPayload = withPayload;
+        }
+
+        private void offer(byte[] frame) {
+            if (!buffer.offer(frame)) {
+                // подписчик не успевает читать: вместо пропущенных событий он получит resync
+                buffer.clear();
+                buffer.offer(RESYNC);
+                resyncs++;
+            }
+        }
+
+        // Следующий кадр; null - за timeout событий не было, CLOSED - подписка закрыта
+        public byte[] next(long timeout, TimeUnit unit) throws InterruptedException {
+            if (!active) {
+                return CLOSED;
+            }
+            return buffer.poll(timeout, unit);
+        }
+
+        public int getResyncs() {
+            return resyncs;
+        }
+
+        @Override
+        public void close() {
+            if (!subscribers.remove(this)) {
+                return;
+            }
+            if (withPayload) {
+                payloadSubscribers.decrementAndGet();
+            }
+            active = false;
+            buffer.clear();
+            // будим поток, ожидающий в next
+            buffer.offer(CLOSED);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Тело ответа с отложенным выбором способа отправки.
+ * Первые minSize байт копятся в буфере: если ответ в него уместился, он уходит целиком с Content-Length
+ * и без сжатия, иначе заголовки отправляются в режиме chunked, а данные идут через gzip или deflate,
+ * если клиент их принимает. Так сжатие не тратит время на мелкие ответы, а длинные списки не буферизуются.
+ */
+public class CompressingResponseStream extends OutputStream {
+    private final HttpExchange exchange;
+    private final int statusCode;
+    // null - клиент не принимает сжатие
+    private final String encoding;
+    private final byte[] buffer;
+    private int count;
+    private OutputStream out;
+
+    public CompressingResponseStream(HttpExchange exchange, int statusCode, String encoding, int minSize) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.encoding = encoding;
+        this.buffer = new byte[minSize];
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+    }
+
+    // gzip или deflate из Accept-Encoding, null - если клиент не принимает ни один
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase();
+            if (tokens.length > 1 && tokens[1].trim().matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            if (coding.equals("gzip") || coding.equals("*")) {
+                return "gzip";
+            }
+            deflate |= coding.equals("deflate");
+        }
+        return deflate ? "deflate" : null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        if (out == null && count + len <= buffer.length) {
+            System.arraycopy(bytes, off, buffer, count, len);
+            count += len;
+            return;
+        }
+        if (out == null) {
+            startStreaming();
+        }
+        out.write(bytes, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // пока ответ помещается в буфер, отправлять нечего - иначе пропал бы Content-Length
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out == null) {
+            exchange.sendResponseHeaders(statusCode, count == 0 ? -1 : count);
+            OutputStream body = exchange.getResponseBody();
+            body.write(buffer, 0, count);
+            body.close();
+        } else {
+            out.close();
+        }
+    }
+
+    private void startStreaming() throws IOException {
+        if (encoding != null) {
+            exchange.getResponseHeaders().add("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(statusCode, 0);
+        OutputStream body = exchange.getResponseBody();
+        if ("gzip".equals(encoding)) {
+            out = new GZIPOutputStream(body, 8192);
+        } else if ("deflate".equals(encoding)) {
+            out = new DeflaterOutputStream(body);
+        } else {
+            out = body;
+        }
+        out.write(buffer, 0, count);
+    }
+}
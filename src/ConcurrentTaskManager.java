@@ -0,0 +1,336 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Потокобезопасный менеджер для HTTP-сервера с несколькими рабочими потоками.
+ * Проверка пересечений глобальна для всей доски, поэтому запись идет под одной блокировкой.
+ * Чтение либо берет опубликованный срез без блокировки, либо обходит рабочие структуры под read lock:
+ * они изменяемые, и оптимистичное чтение могло бы увидеть их посреди перестройки.
+ * Сущности отдаются копиями, чтобы вызывающий код не менял рабочие объекты в обход блокировки.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private final StampedLock lock = new StampedLock();
+    // StampedLock не реентерабелен, а базовый класс вызывает свои публичные методы изнутри записи
+    private volatile Thread writer;
+    // срез после последней завершенной записи: читатели берут его без блокировки
+    private volatile BoardSnapshot published;
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(new SynchronizedHistoryManager(historyManager));
+        published = super.snapshot();
+    }
+
+    // getTasks, getEpics, getSubtasks и getPrioritizedTasks читают срез и блокировок не берут.
+    // Промежуточные состояния операции (подзадача добавлена, эпик еще не пересчитан) читателям не видны
+    @Override
+    public BoardSnapshot snapshot() {
+        return writer == Thread.currentThread() ? super.snapshot() : published;
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return readLocked(() -> copies(super.getTasksPage(afterId, limit)));
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return readLocked(() -> copies(super.getEpicsPage(afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return readLocked(() -> copies(super.getSubtasksPage(afterId, limit)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        return readLocked(() -> copies(super.getPrioritizedPage(afterStart, afterId, limit)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedInRange(LocalDateTime from, LocalDateTime to, boolean includeStraddling) {
+        return readLocked(() -> copies(super.getPrioritizedInRange(from, to, includeStraddling)));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return readLocked(() -> copies(super.search(query, limit)));
+    }
+
+    @Override
+    public List<Task> query(TaskQuery query) {
+        return readLocked(() -> copies(super.query(query)));
+    }
+
+    @Override
+    public TaskQuery.Access explain(TaskQuery query) {
+        return readLocked(() -> super.explain(query));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status, int afterId, int limit) {
+        return readLocked(() -> copies(super.getTasksByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(TaskStatus status, int afterId, int limit) {
+        return readLocked(() -> copies(super.getEpicsByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status, int afterId, int limit) {
+        return readLocked(() -> copies(super.getSubtasksByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public long getVersion() {
+        return readLocked(super::getVersion);
+    }
+
+    @Override
+    public long getTasksVersion() {
+        return readLocked(super::getTasksVersion);
+    }
+
+    @Override
+    public long getEpicsVersion() {
+        return readLocked(super::getEpicsVersion);
+    }
+
+    @Override
+    public long getSubtasksVersion() {
+        return readLocked(super::getSubtasksVersion);
+    }
+
+    // Просмотр попадает в историю под блокировкой чтения: удаление ждет ее, поэтому удаленная сущность
+    // в историю не попадет. Возвращается своя копия сущности из среза: ни рабочий объект писателя,
+    // ни общий для читателей срез вызывающий код изменить не может
+    @Override
+    public Task getTask(int id) {
+        return readLocked(() -> viewed(snapshot().getTask(id), Task::copy));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return readLocked(() -> viewed(snapshot().getEpic(id), Epic::copy));
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return readLocked(() -> viewed(snapshot().getSubtask(id), Subtask::copy));
+    }
+
+    private <T extends Task> T viewed(T item, UnaryOperator<T> copier) {
+        if (item == null) {
+            return null;
+        }
+        T copy = copier.apply(item);
+        historyManager.add(copy);
+        return copy;
+    }
+
+    // Набор id подзадач у эпика в срезе неизменяем, поэтому список собирается из среза без блокировки
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        BoardSnapshot snapshot = snapshot();
+        Epic epic = snapshot.getEpic(epicId);
+        if (epic == null) {
+            return Collections.emptyList();
+        }
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtaskIds().size());
+        epic.forEachSubtaskId(subtaskId -> Optional.ofNullable(snapshot.getSubtask(subtaskId))
+                .map(Subtask::copy)
+                .ifPresent(epicSubtasks::add));
+        return epicSubtasks;
+    }
+
+    @Override
+    public boolean hasTimeOverlap(Task task) {
+        return readLocked(() -> super.hasTimeOverlap(task));
+    }
+
+    @Override
+    public List<Task> findTasksByPredicate(Predicate<Task> predicate) {
+        return readLocked(() -> copies(super.findTasksByPredicate(predicate)));
+    }
+
+    @Override
+    public void forEachTask(Consumer<Task> action) {
+        readLocked(() -> {
+            super.forEachTask(task -> action.accept(task.copy()));
+            return null;
+        });
+    }
+
+    @Override
+    public Map<TaskStatus, List<Task>> groupTasksByStatus() {
+        return readLocked(() -> {
+            Map<TaskStatus, List<Task>> groups = super.groupTasksByStatus();
+            groups.replaceAll((status, group) -> copies(group));
+            return groups;
+        });
+    }
+
+    @Override
+    public List<Task> getTasksInTimeRange(LocalDateTime start, LocalDateTime end) {
+        return readLocked(() -> copies(super.getTasksInTimeRange(start, end)));
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return write(() -> super.createTask(task));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return write(() -> super.createEpic(epic));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return write(() -> super.createSubtask(subtask));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> super.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> super.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> super.updateSubtask(subtask));
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        write(() -> super.deleteTask(id));
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        write(() -> super.deleteEpic(id));
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        write(() -> super.deleteSubtask(id));
+    }
+
+    @Override
+    public List<Task> createAll(List<? extends Task> items) {
+        return write(() -> super.createAll(items));
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> items) {
+        write(() -> super.updateAll(items));
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        write(() -> super.deleteAll(ids));
+    }
+
+    // операции внутри work повторно входят в блокировку записи текущего потока
+    @Override
+    public <T> T inTransaction(Supplier<T> work) {
+        return write(() -> super.inTransaction(work));
+    }
+
+    @Override
+    public void deleteTasks() {
+        write(super::deleteTasks);
+    }
+
+    @Override
+    public void deleteEpics() {
+        write(super::deleteEpics);
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        write(super::deleteSubtasks);
+    }
+
+    // копии делаются под блокировкой: после ее снятия писатель может менять рабочие объекты
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> List<T> copies(List<T> items) {
+        List<T> result = new ArrayList<>(items.size());
+        for (T item : items) {
+            result.add((T) item.copy());
+        }
+        return result;
+    }
+
+    private <T> T readLocked(Supplier<T> reader) {
+        if (writer == Thread.currentThread()) {
+            return reader.get();
+        }
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        if (writer == Thread.currentThread()) {
+            return action.get();
+        }
+        long stamp = lock.writeLock();
+        writer = Thread.currentThread();
+        try {
+            return action.get();
+        } finally {
+            published = super.snapshot();
+            writer = null;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static class SynchronizedHistoryManager implements HistoryManager {
+        private final HistoryManager delegate;
+
+        SynchronizedHistoryManager(HistoryManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+            delegate.add(task);
+        }
+
+        @Override
+        public synchronized void remove(int id) {
+            delegate.remove(id);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return delegate.getHistory();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Когда FileBackedTaskManager сбрасывает накопленные изменения на диск.
+ * Изменения между сбросами объединяются в одну запись файла или журнала.
+ */
+public class DurabilityPolicy {
+    private final int flushEveryOperations;
+    private final long flushIntervalMillis;
+    private final boolean fsync;
+
+    private DurabilityPolicy(int flushEveryOperations, long flushIntervalMillis, boolean fsync) {
+        this.flushEveryOperations = flushEveryOperations;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.fsync = fsync;
+    }
+
+    // Синхронная запись после каждого изменения - прежнее поведение
+    public static DurabilityPolicy everyOperation() {
+        return new DurabilityPolicy(1, 0, false);
+    }
+
+    public static DurabilityPolicy everyOperations(int operations) {
+        if (operations < 1) {
+            throw new IllegalArgumentException("Количество операций должно быть положительным");
+        }
+        return new DurabilityPolicy(operations, 0, false);
+    }
+
+    // Фоновый сброс по таймеру, запросы на диск не ждут
+    public static DurabilityPolicy everyMillis(long millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Интервал должен быть положительным");
+        }
+        return new DurabilityPolicy(0, millis, false);
+    }
+
+    // Дополнительно дожидаться FileChannel.force после каждого сброса
+    public DurabilityPolicy withFsync() {
+        return new DurabilityPolicy(flushEveryOperations, flushIntervalMillis, true);
+    }
+
+    public int getFlushEveryOperations() {
+        return flushEveryOperations;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public boolean isFsync() {
+        return fsync;
+    }
+}
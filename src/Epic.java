@@ -1,79 +1,104 @@
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private List<Integer> subtaskIds;
+    // неизменяемое множество: изменение подзадач строит новую версию за O(log k), поэтому копия эпика
+    // для среза делит его с рабочим эпиком, а не копирует все id
+    private PersistentSortedSet<Integer> subtaskIds;
     private LocalDateTime endTime;
+    // агрегаты по подзадачам, не сериализуются
+    private transient Rollup rollup;
 
     public Epic(int id, String title, String description) {
-        super(id, title, description, "NEW");
-        this.subtaskIds = new ArrayList<>();
+        super(id, title, description, TaskStatus.NEW);
+        this.subtaskIds = PersistentSortedSet.empty(Comparator.naturalOrder());
     }
 
-    public Epic(int id, String title, String description, String status) {
+    public Epic(int id, String title, String description, TaskStatus status) {
         super(id, title, description, status);
-        this.subtaskIds = new ArrayList<>();
+        this.subtaskIds = PersistentSortedSet.empty(Comparator.naturalOrder());
     }
 
-    public void calculateTimes(List<Subtask> subtasks) {
-        if (subtasks == null || subtasks.isEmpty()) {
-            this.duration = Duration.ZERO;
-            this.startTime = null;
-            this.endTime = null;
-            return;
-        }
-
-        LocalDateTime earliestStart = null;
-        LocalDateTime latestEnd = null;
-        Duration totalDuration = Duration.ZERO;
+    @Override
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
 
-        for (Subtask subtask : subtasks) {
-            if (subtask.getStartTime() != null) {
-                if (earliestStart == null || subtask.getStartTime().isBefore(earliestStart)) {
-                    earliestStart = subtask.getStartTime();
-                }
+    public List<Integer> getSubtaskIds() {
+        return subtaskIds.asList();
+    }
 
-                LocalDateTime subtaskEnd = subtask.getEndTime();
-                if (subtaskEnd != null) {
-                    if (latestEnd == null || subtaskEnd.isAfter(latestEnd)) {
-                        latestEnd = subtaskEnd;
-                    }
-                }
-            }
+    public void forEachSubtaskId(IntConsumer action) {
+        subtaskIds.asList().forEach(action::accept);
+    }
 
-            if (subtask.getDuration() != null) {
-                totalDuration = totalDuration.plus(subtask.getDuration());
-            }
+    // Добавляет подзадачу или заменяет ее прежний вклад и пересчитывает статус и время за O(log k)
+    public void attachSubtask(Subtask subtask) {
+        Rollup rollup = rollup();
+        Contribution previous = rollup.contributions.get(subtask.getId());
+        if (previous != null) {
+            rollup.subtract(previous);
         }
-
-        this.startTime = earliestStart;
-        this.endTime = latestEnd;
-        this.duration = totalDuration;
+        Contribution contribution = new Contribution(subtask);
+        rollup.contributions.put(subtask.getId(), contribution);
+        rollup.add(contribution);
+        subtaskIds = subtaskIds.add(subtask.getId());
+        applyRollup();
     }
 
-    @Override
-    public LocalDateTime getEndTime() {
-        return endTime;
+    public void detachSubtask(int subtaskId) {
+        Rollup rollup = rollup();
+        Contribution previous = rollup.contributions.remove(subtaskId);
+        if (previous != null) {
+            rollup.subtract(previous);
+        }
+        subtaskIds = subtaskIds.remove(subtaskId);
+        applyRollup();
     }
 
-    public List<Integer> getSubtaskIds() {
-        return subtaskIds;
+    public void clearSubtasks() {
+        subtaskIds = PersistentSortedSet.empty(Comparator.naturalOrder());
+        rollup = null;
+        applyRollup();
     }
 
-    public void addSubtaskId(int subtaskId) {
-        if (!subtaskIds.contains(subtaskId)) {
-            subtaskIds.add(subtaskId);
+    private Rollup rollup() {
+        if (rollup == null) {
+            rollup = new Rollup();
         }
+        return rollup;
     }
 
-    public void removeSubtaskId(int subtaskId) {
-        subtaskIds.remove((Integer) subtaskId);
+    private void applyRollup() {
+        Rollup rollup = rollup();
+        int total = rollup.contributions.size();
+        if (total == 0 || rollup.newCount == total) {
+            this.status = TaskStatus.NEW;
+        } else if (rollup.doneCount == total) {
+            this.status = TaskStatus.DONE;
+        } else {
+            this.status = TaskStatus.IN_PROGRESS;
+        }
+        this.startTime = rollup.starts.isEmpty() ? null : rollup.starts.firstKey();
+        this.endTime = rollup.ends.isEmpty() ? null : rollup.ends.lastKey();
+        this.duration = rollup.totalDuration;
     }
 
-    public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
+    // Копия полей на текущий момент - версия эпика для среза менеджера за O(1): неизменяемое множество id
+    // подзадач общее с рабочим эпиком; агрегаты не копируются
+    @Override
+    public Epic copy() {
+        Epic copy = new Epic(id, title, description, status);
+        copy.subtaskIds = subtaskIds;
+        copy.duration = duration;
+        copy.startTime = startTime;
+        copy.endTime = endTime;
+        copy.version = version;
+        return copy;
     }
 
     @Override
@@ -89,4 +114,66 @@ public class Epic extends Task {
                 ", subtaskIds=" + subtaskIds +
                 '}';
     }
-}
\ No newline at end of file
+
+    private static class Contribution {
+        final TaskStatus status;
+        final Duration duration;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+
+        Contribution(Subtask subtask) {
+            this.status = subtask.getStatus();
+            this.duration = subtask.getDuration();
+            this.startTime = subtask.getStartTime();
+            this.endTime = subtask.getEndTime();
+        }
+    }
+
+    private static class Rollup {
+        final IntHashMap<Contribution> contributions = new IntHashMap<>();
+        // мультимножества времен начала и окончания: время -> количество подзадач
+        final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+        Duration totalDuration = Duration.ZERO;
+        int newCount;
+        int doneCount;
+
+        void add(Contribution contribution) {
+            if (contribution.status == TaskStatus.NEW) {
+                newCount++;
+            } else if (contribution.status == TaskStatus.DONE) {
+                doneCount++;
+            }
+            if (contribution.duration != null) {
+                totalDuration = totalDuration.plus(contribution.duration);
+            }
+            if (contribution.startTime != null) {
+                starts.merge(contribution.startTime, 1, Integer::sum);
+                if (contribution.endTime != null) {
+                    ends.merge(contribution.endTime, 1, Integer::sum);
+                }
+            }
+        }
+
+        void subtract(Contribution contribution) {
+            if (contribution.status == TaskStatus.NEW) {
+                newCount--;
+            } else if (contribution.status == TaskStatus.DONE) {
+                doneCount--;
+            }
+            if (contribution.duration != null) {
+                totalDuration = totalDuration.minus(contribution.duration);
+            }
+            if (contribution.startTime != null) {
+                decrement(starts, contribution.startTime);
+                if (contribution.endTime != null) {
+                    decrement(ends, contribution.endTime);
+                }
+            }
+        }
+
+        private static void decrement(TreeMap<LocalDateTime, Integer> counts, LocalDateTime time) {
+            counts.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
@@ -1,46 +1,54 @@
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
+import java.util.Map;
 
-public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
+public class EpicsHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
     private final Gson gson;
 
     public EpicsHandler(TaskManager taskManager) {
+        this(taskManager, null);
+    }
+
+    public EpicsHandler(TaskManager taskManager, ResponseCache cache) {
+        super(cache);
         this.taskManager = taskManager;
         this.gson = GsonFactory.createGson();
+
+        router.get("/epics", (exchange, params) -> handleGetAll(exchange))
+                .get("/epics/{id}", (exchange, params) -> handleGet(exchange, params[0]));
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
+    private void handleGetAll(HttpExchange exchange) throws IOException {
+        if (notModified(exchange, taskManager.getEpicsVersion())) {
+            return;
+        }
+        Map<String, String> params = queryParams(exchange);
+        TaskQuery query = taskQueryParam(TaskType.EPIC, params);
+        if (query != null) {
+            // выборка с условиями через индексы менеджера, с теми же limit/after, что и весь список
+            sendQuery(exchange, gson, taskManager, query, limitParam(params));
+            return;
+        }
+        if (params.containsKey("limit") || params.containsKey("after")) {
+            int after = params.containsKey("after") ? intParam("after", params.get("after")) : 0;
+            sendPage(exchange, gson, limitParam(params), limit -> taskManager.getEpicsPage(after, limit),
+                    item -> String.valueOf(item.getId()));
+        } else {
+            sendJsonList(exchange, gson, taskManager.getEpics());
+        }
+    }
 
-        try {
-            switch (method) {
-                case "GET":
-                    if (path.equals("/epics")) {
-                        String response = gson.toJson(taskManager.getEpics());
-                        sendSuccess(exchange, response);
-                    } else if (path.matches("/epics/\\d+")) {
-                        String[] parts = path.split("/");
-                        int id = Integer.parseInt(parts[2]);
-                        Epic epic = taskManager.getEpic(id);
-                        if (epic != null) {
-                            sendSuccess(exchange, gson.toJson(epic));
-                        } else {
-                            sendNotFound(exchange);
-                        }
-                    } else {
-                        sendNotFound(exchange);
-                    }
-                    break;
-                default:
-                    sendBadRequest(exchange, "Method not allowed");
-            }
-        } catch (Exception e) {
-            sendInternalError(exchange, e.getMessage());
+    private void handleGet(HttpExchange exchange, int id) throws IOException {
+        Epic epic = taskManager.getEpic(id);
+        if (epic == null) {
+            sendNotFound(exchange);
+            return;
+        }
+        if (notModified(exchange, epic.getVersion())) {
+            return;
         }
+        sendCachedJson(exchange, gson, ResponseCache.key(TaskType.EPIC, id), epic);
     }
-}
\ No newline at end of file
+}
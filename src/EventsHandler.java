@@ -0,0 +1,106 @@
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GET /events - поток изменений доски (Server-Sent Events): created, updated, deleted и cleared
+ * с типом, id и версией сущности; с параметром payload в событие добавляется сама сущность.
+ * Соединение остается открытым, пока клиент не отключится или сервер не остановится.
+ * Поток обработчика только отправляет заголовки: ожидание событий идет в отдельном потоке подписки,
+ * иначе подписчики заняли бы пул обработчиков, а затем и поток-диспетчер HttpServer.
+ */
+public class EventsHandler extends BaseHttpHandler {
+    // комментарий SSE раз в HEARTBEAT_SECONDS держит соединение и обнаруживает отключившихся клиентов
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final byte[] HEARTBEAT = ": keepalive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final TaskManager taskManager;
+    private final ChangeFeed feed;
+    // число потоков ограничено числом подписок ChangeFeed
+    private final ExecutorService streams = Executors.newCachedThreadPool(streamThreads());
+
+    public EventsHandler(TaskManager taskManager, ChangeFeed feed) {
+        this.taskManager = taskManager;
+        this.feed = feed;
+
+        router.get("/events", (exchange, params) -> handleEvents(exchange));
+    }
+
+    // Останавливает потоки подписок; сами подписки закрывает ChangeFeed.close()
+    public void close() {
+        streams.shutdown();
+        try {
+            streams.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        ChangeFeed.Subscription subscription = feed.subscribe(queryParams(exchange).containsKey("payload"));
+        if (subscription == null) {
+            sendText(exchange, "{\"error\":\"Too many subscribers\"}", 503);
+            return;
+        }
+        OutputStream body;
+        try {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream;charset=utf-8");
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            // события не сжимаются и не буферизуются: каждый кадр уходит клиенту сразу
+            exchange.sendResponseHeaders(200, 0);
+            body = exchange.getResponseBody();
+            // истории событий нет, поэтому переподключившийся клиент, отставший от текущей версии, перечитывает списки
+            String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+            body.write(lastEventId != null && !lastEventId.equals(String.valueOf(taskManager.getVersion()))
+                    ? ChangeFeed.RESYNC : HEARTBEAT);
+            body.flush();
+        } catch (IOException e) {
+            // клиент отключился до начала потока
+            subscription.close();
+            exchange.close();
+            return;
+        }
+        try {
+            streams.execute(() -> stream(exchange, subscription, body));
+        } catch (RejectedExecutionException e) {
+            // сервер останавливается
+            subscription.close();
+            exchange.close();
+        }
+    }
+
+    private void stream(HttpExchange exchange, ChangeFeed.Subscription subscription, OutputStream body) {
+        try (subscription; body) {
+            while (true) {
+                byte[] frame = subscription.next(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if (frame == ChangeFeed.CLOSED) {
+                    break;
+                }
+                body.write(frame == null ? HEARTBEAT : frame);
+                body.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // клиент отключился - подписка закрывается, ответ уже начат
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static ThreadFactory streamThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "sse-stream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,18 +1,119 @@
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private static final String HEADER = "id,type,name,status,description,epic,duration,startTime";
+    // файлы меньше этого размера быстрее прочитать в одном потоке
+    private static final long PARALLEL_LOAD_BYTES = 1 << 20;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
     private final File file;
+    private final File journalFile;
+    // 0 - журнал выключен, файл переписывается целиком после каждого изменения
+    private final int checkpointEvery;
+    private int journalRecords;
+    // пока снимок не записан ни разу, журнал нельзя дописывать: на диске может лежать чужое состояние
+    private boolean checkpointed;
+
+    private final DurabilityPolicy policy;
+    private final ScheduledExecutorService flusher;
+    // изменения, которые еще не попали на диск
+    private final List<String> pendingRecords = new ArrayList<>();
+    private int pendingOperations;
+    // внутри inTransaction изменения только накапливаются и считаются одной операцией
+    private int transactionDepth;
+    private boolean transactionChanged;
+    private ManagerSaveException flushError;
+    // идет запись на диск; сбросы выполняются по одному, чтобы записи журнала не перемешались
+    private boolean flushing;
+    private boolean binarySnapshot;
 
     public FileBackedTaskManager(HistoryManager historyManager, File file) {
+        this(historyManager, file, 0);
+    }
+
+    public FileBackedTaskManager(HistoryManager historyManager, File file, int checkpointEvery) {
+        this(historyManager, file, checkpointEvery, DurabilityPolicy.everyOperation());
+    }
+
+    public FileBackedTaskManager(HistoryManager historyManager, File file, int checkpointEvery,
+                                 DurabilityPolicy policy) {
         super(historyManager);
         this.file = file;
+        this.journalFile = new File(file.getPath() + ".journal");
+        this.checkpointEvery = checkpointEvery;
+        this.policy = policy;
+        if (policy.getFlushIntervalMillis() > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-manager-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::backgroundFlush, policy.getFlushIntervalMillis(),
+                    policy.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), file);
+        return loadFromFile(file, 0);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, int checkpointEvery) {
+        return loadFromFile(file, checkpointEvery, DurabilityPolicy.everyOperation());
+    }
+
+    // Загружает снимок и дописанные после него записи журнала
+    public static FileBackedTaskManager loadFromFile(File file, int checkpointEvery, DurabilityPolicy policy) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), file,
+                checkpointEvery, policy);
+        try {
+            if (file.exists() || !manager.journalFile.exists()) {
+                manager.readSnapshot();
+            }
+            if (manager.journalFile.exists()) {
+                manager.journalRecords = manager.replayJournal();
+            }
+        } catch (IOException | IllegalArgumentException | DateTimeException e) {
+            // IllegalArgumentException - поврежденное число, статус или число столбцов, DateTimeException - дата
+            throw new ManagerSaveException("Ошибка при загрузке из файла", e);
+        }
+        manager.finishRestore();
+        manager.checkpointed = true;
+        return manager;
+    }
+
+    // Снимки будут записываться в двоичном формате BinarySnapshot вместо CSV
+    public synchronized void setBinarySnapshot(boolean binarySnapshot) {
+        this.binarySnapshot = binarySnapshot;
+    }
+
+    private void readSnapshot() throws IOException {
+        if (BinarySnapshot.isBinary(file)) {
+            binarySnapshot = true;
+            BinarySnapshot.read(file, this::restore);
+            return;
+        }
+        if (file.length() >= PARALLEL_LOAD_BYTES) {
+            readSnapshotParallel();
+            return;
+        }
         try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
             reader.readLine(); // Пропускаем заголовок
 
@@ -23,69 +124,438 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                 }
                 Task task = fromString(line);
                 if (task != null) {
-                    if (task instanceof Epic) {
-                        manager.epics.put(task.getId(), (Epic) task);
-                        if (task.getId() >= manager.nextId) {
-                            manager.nextId = task.getId() + 1;
-                        }
-                    } else if (task instanceof Subtask) {
-                        Subtask subtask = (Subtask) task;
-                        manager.subtasks.put(subtask.getId(), subtask);
-                        if (subtask.getId() >= manager.nextId) {
-                            manager.nextId = subtask.getId() + 1;
-                        }
-                        // Добавляем подзадачу в эпик
-                        Epic epic = manager.epics.get(subtask.getEpicId());
-                        if (epic != null) {
-                            epic.addSubtaskId(subtask.getId());
-                        }
-                        if (subtask.getStartTime() != null) {
-                            manager.prioritizedTasks.add(subtask);
+                    restore(task);
+                }
+            }
+        }
+    }
+
+    // Делит файл на куски по границам строк и разбирает их параллельно в ForkJoinPool
+    private void readSnapshotParallel() throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int start = indexOf(bytes, (byte) '\n', 0) + 1; // Пропускаем заголовок
+        if (start == 0) {
+            return;
+        }
+        int chunkCount = Math.max(1, Runtime.getRuntime().availableProcessors() * 4);
+        int chunkSize = Math.max(1, (bytes.length - start) / chunkCount);
+        List<int[]> chunks = new ArrayList<>();
+        while (start < bytes.length) {
+            int end = Math.min(bytes.length, start + chunkSize);
+            int lineEnd = indexOf(bytes, (byte) '\n', end);
+            end = lineEnd < 0 ? bytes.length : lineEnd + 1;
+            chunks.add(new int[]{start, end});
+            start = end;
+        }
+        List<List<Task>> parsed = chunks.parallelStream()
+                .map(chunk -> parseChunk(bytes, chunk[0], chunk[1]))
+                .collect(Collectors.toList());
+        // куски применяются по порядку, поэтому повторы id разрешаются так же, как при чтении подряд
+        for (List<Task> chunk : parsed) {
+            chunk.forEach(this::restore);
+        }
+    }
+
+    private static List<Task> parseChunk(byte[] bytes, int start, int end) {
+        List<Task> result = new ArrayList<>();
+        String text = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            String line = text.substring(lineStart, lineEnd);
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (!line.trim().isEmpty()) {
+                Task task = fromString(line);
+                if (task != null) {
+                    result.add(task);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return result;
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int replayJournal() throws IOException {
+        int records = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split(",", 3);
+                if (parts.length < 2 || ("DEL".equals(parts[0]) && parts.length < 3)) {
+                    throw new IOException("Неполная запись журнала: " + line);
+                }
+                switch (parts[0]) {
+                    case "PUT":
+                        Task task = fromString(line.substring(4));
+                        if (task != null) {
+                            restore(task);
                         }
-                    } else {
-                        manager.tasks.put(task.getId(), task);
-                        if (task.getId() >= manager.nextId) {
-                            manager.nextId = task.getId() + 1;
+                        break;
+                    case "DEL":
+                        int id = Integer.parseInt(parts[2]);
+                        switch (parts[1]) {
+                            case "TASK":
+                                tasks.remove(id);
+                                break;
+                            case "EPIC":
+                                epics.remove(id);
+                                break;
+                            case "SUBTASK":
+                                subtasks.remove(id);
+                                break;
+                            default:
+                                break;
                         }
-                        if (task.getStartTime() != null) {
-                            manager.prioritizedTasks.add(task);
+                        break;
+                    case "CLEAR":
+                        if ("TASK".equals(parts[1])) {
+                            tasks.clear();
+                        } else {
+                            // без эпиков подзадачи не живут
+                            subtasks.clear();
+                            if ("EPIC".equals(parts[1])) {
+                                epics.clear();
+                            }
                         }
-                    }
+                        break;
+                    default:
+                        throw new IOException("Неизвестная запись журнала: " + line);
                 }
+                records++;
             }
+        }
+        return records;
+    }
 
+    private void restore(Task task) {
+        if (task instanceof Epic) {
+            epics.put(task.getId(), (Epic) task);
+        } else if (task instanceof Subtask) {
+            subtasks.put(task.getId(), (Subtask) task);
+        } else {
+            tasks.put(task.getId(), task);
+        }
+        if (task.getId() >= nextId) {
+            nextId = task.getId() + 1;
+        }
+    }
 
-            for (Epic epic : manager.epics.values()) {
-                manager.updateEpicTimes(epic.getId());
+    // Производные структуры строятся один раз, когда все записи уже применены
+    private void finishRestore() {
+        // статус и время эпика из файла могли устареть: журнал мог удалить его последнюю подзадачу
+        epics.values().forEach(Epic::clearSubtasks);
+        for (Subtask subtask : subtasks.values()) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.attachSubtask(subtask);
             }
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при загрузке из файла", e);
         }
-        return manager;
+        List<Task> scheduled = new ArrayList<>(tasks.size() + subtasks.size());
+        scheduled.addAll(tasks.values());
+        scheduled.addAll(subtasks.values());
+        try {
+            buildPrioritized(scheduled);
+        } catch (IllegalArgumentException e) {
+            // файл правили вручную или он записан версией без проверки пересечений
+            throw new ManagerSaveException("Ошибка при загрузке из файла: " + e.getMessage(), e);
+        }
+        rebuildSecondaryIndexes();
+    }
+
+    synchronized void save() {
+        beginFlush();
+        try {
+            flushBatch(takeBatch(true));
+        } finally {
+            endFlush();
+        }
     }
 
-    void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-            writer.write("id,type,name,status,description,epic,duration,startTime");
+    private void writeCsv(OutputStream out, BoardSnapshot snapshot) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.newLine();
+
+        for (Task task : snapshot.getTasks()) {
+            writer.write(toString(task));
             writer.newLine();
+        }
 
-            for (Task task : tasks.values()) {
-                writer.write(toString(task));
-                writer.newLine();
+        for (Epic epic : snapshot.getEpics()) {
+            writer.write(toString(epic));
+            writer.newLine();
+        }
+
+        for (Subtask subtask : snapshot.getSubtasks()) {
+            writer.write(toString(subtask));
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @FunctionalInterface
+    interface SnapshotWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    // Пишет снимок во временный файл рядом с target и атомарно заменяет им target.
+    // Сбой посреди записи оставляет на диске прежний снимок, а не обрезанный
+    static void writeAtomically(File target, boolean force, SnapshotWriter writer) throws IOException {
+        // переименование обходит права на сам файл, поэтому запрет записи проверяется явно
+        if (target.exists() && !target.canWrite()) {
+            throw new AccessDeniedException(target.getPath());
+        }
+        File temp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+            writer.write(buffered);
+            buffered.flush();
+            if (force) {
+                out.getChannel().force(true);
             }
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 
-            for (Epic epic : epics.values()) {
-                writer.write(toString(epic));
-                writer.newLine();
+    // Сбрасывает на диск все накопленные изменения
+    @Override
+    public synchronized void flush() {
+        flushError = null;
+        flushPending();
+    }
+
+    // Останавливает фоновый сброс и дописывает хвост изменений
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            // начатый фоновый сброс должен закончиться до последнего сброса
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }
+        flush();
+    }
 
-            for (Subtask subtask : subtasks.values()) {
-                writer.write(toString(subtask));
-                writer.newLine();
+    // Очередь забирается под монитором, а запись на диск идет без него: операции менеджера не ждут
+    // фоновый сброс, а очередность записей обеспечивает флаг flushing
+    private void backgroundFlush() {
+        FlushBatch batch;
+        synchronized (this) {
+            if (flushing || pendingOperations == 0) {
+                return;
+            }
+            flushing = true;
+            batch = takeBatch(needsCheckpoint());
+        }
+        ManagerSaveException error = null;
+        try {
+            writeBatch(batch);
+        } catch (ManagerSaveException e) {
+            error = e;
+        } finally {
+            synchronized (this) {
+                if (error == null) {
+                    completeBatch(batch);
+                } else {
+                    // изменения возвращаются в очередь и будут записаны при следующей попытке
+                    requeue(batch);
+                    flushError = error;
+                }
+                endFlush();
+            }
+        }
+    }
+
+    private void persist(String... records) {
+        // изменение уже применено в памяти, поэтому сначала ставим его в очередь и только потом сообщаем
+        // об ошибке фонового сброса - иначе оно не попадет на диск
+        if (checkpointEvery > 0) {
+            pendingRecords.addAll(List.of(records));
+        }
+        if (transactionDepth > 0) {
+            transactionChanged = true;
+        } else {
+            pendingOperations++;
+        }
+        if (flushError != null) {
+            ManagerSaveException error = flushError;
+            flushError = null;
+            throw error;
+        }
+        if (transactionDepth == 0) {
+            flushIfDue();
+        }
+    }
+
+    private void flushIfDue() {
+        int threshold = policy.getFlushEveryOperations();
+        if (threshold > 0 && pendingOperations >= threshold) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() {
+        beginFlush();
+        try {
+            // пока ждали фоновый сброс, он мог забрать и наши изменения
+            if (pendingOperations > 0) {
+                flushBatch(takeBatch(needsCheckpoint()));
             }
+        } finally {
+            endFlush();
+        }
+    }
+
+    private boolean needsCheckpoint() {
+        return checkpointEvery <= 0 || !checkpointed || journalRecords + pendingRecords.size() >= checkpointEvery;
+    }
+
+    // Ждет окончания фоновой записи; wait отпускает монитор, чтобы фоновый сброс мог ее завершить
+    private synchronized void beginFlush() {
+        boolean interrupted = false;
+        while (flushing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        flushing = true;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void endFlush() {
+        flushing = false;
+        notifyAll();
+    }
+
+    // Забирает очередь изменений; вызывается под монитором
+    private FlushBatch takeBatch(boolean checkpoint) {
+        FlushBatch batch = new FlushBatch(checkpoint ? snapshot() : null, binarySnapshot,
+                new ArrayList<>(pendingRecords), pendingOperations);
+        pendingRecords.clear();
+        pendingOperations = 0;
+        return batch;
+    }
+
+    private void flushBatch(FlushBatch batch) {
+        try {
+            writeBatch(batch);
+        } catch (ManagerSaveException e) {
+            requeue(batch);
+            throw e;
+        }
+        completeBatch(batch);
+    }
+
+    // Пишет на диск срез или записи журнала; состояние менеджера не трогает, поэтому монитор не нужен
+    private void writeBatch(FlushBatch batch) {
+        if (batch.snapshot != null) {
+            writeSnapshot(batch.snapshot, batch.binary);
+        } else {
+            appendJournal(batch.records);
+        }
+    }
+
+    private void completeBatch(FlushBatch batch) {
+        if (batch.snapshot != null) {
+            journalRecords = 0;
+            checkpointed = true;
+        } else {
+            journalRecords += batch.records.size();
+        }
+    }
+
+    // неудачная запись возвращается в начало очереди, перед изменениями, сделанными во время записи
+    private void requeue(FlushBatch batch) {
+        pendingRecords.addAll(0, batch.records);
+        pendingOperations += batch.operations;
+    }
+
+    private void writeSnapshot(BoardSnapshot snapshot, boolean binary) {
+        // перед удалением журнала снимок должен дойти до диска, иначе сбой питания потеряет оба
+        boolean force = policy.isFsync() || journalFile.exists();
+        try {
+            writeAtomically(file, force, out -> {
+                if (binary) {
+                    BinarySnapshot.write(out, snapshot.getTasks(), snapshot.getEpics(), snapshot.getSubtasks());
+                } else {
+                    writeCsv(out, snapshot);
+                }
+            });
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка при сохранении в файл", e);
         }
+        // снимок содержит все изменения журнала
+        if (journalFile.exists() && !journalFile.delete()) {
+            throw new ManagerSaveException("Не удалось очистить журнал " + journalFile, null);
+        }
+    }
+
+    private void appendJournal(List<String> records) {
+        try (FileOutputStream out = new FileOutputStream(journalFile, true);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (String record : records) {
+                writer.write(record);
+                writer.newLine();
+            }
+            writer.flush();
+            if (policy.isFsync()) {
+                out.getChannel().force(true);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в журнал", e);
+        }
+    }
+
+    // Изменения, забранные из очереди одним сбросом: срез для нового снимка или записи для журнала
+    private static class FlushBatch {
+        // null - записи дописываются в журнал
+        final BoardSnapshot snapshot;
+        final boolean binary;
+        final List<String> records;
+        final int operations;
+
+        FlushBatch(BoardSnapshot snapshot, boolean binary, List<String> records, int operations) {
+            this.snapshot = snapshot;
+            this.binary = binary;
+            this.records = records;
+            this.operations = operations;
+        }
+    }
+
+    private String putRecord(Task task) {
+        return "PUT," + toString(task);
     }
 
     private String toString(Task task) {
@@ -94,37 +564,45 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
         if (task instanceof Epic) {
             return String.format("%d,EPIC,%s,%s,%s,,%s,%s",
-                    task.getId(), task.getTitle(), task.getStatus(), task.getDescription(),
+                    task.getId(), task.getTitle(), statusName(task), task.getDescription(),
                     durationStr, startTimeStr);
         } else if (task instanceof Subtask) {
             Subtask subtask = (Subtask) task;
             return String.format("%d,SUBTASK,%s,%s,%s,%d,%s,%s",
-                    subtask.getId(), subtask.getTitle(), subtask.getStatus(),
+                    subtask.getId(), subtask.getTitle(), statusName(subtask),
                     subtask.getDescription(), subtask.getEpicId(),
                     durationStr, startTimeStr);
         } else {
             return String.format("%d,TASK,%s,%s,%s,,%s,%s",
-                    task.getId(), task.getTitle(), task.getStatus(), task.getDescription(),
+                    task.getId(), task.getTitle(), statusName(task), task.getDescription(),
                     durationStr, startTimeStr);
         }
     }
 
+    private static String statusName(Task task) {
+        return task.getStatus() == null ? "" : task.getStatus().name();
+    }
+
     private static Task fromString(String value) {
         String[] parts = value.split(",", -1);
         if (parts.length < 5) {
             return null;
         }
+        // 5 и 6 столбцов - файлы без времени, 8 - текущий формат
+        if (parts.length == 7 || parts.length > 8) {
+            throw new IllegalArgumentException("Неверное число столбцов в записи: " + value);
+        }
 
         int id = Integer.parseInt(parts[0]);
         String type = parts[1];
         String name = parts[2];
-        String status = parts[3];
+        TaskStatus status = TaskStatus.parse(parts[3]);
         String description = parts[4];
 
         Duration duration = null;
         LocalDateTime startTime = null;
 
-        if (parts.length >= 7) {
+        if (parts.length == 8) {
             if (!parts[6].isEmpty()) {
                 duration = Duration.ofMinutes(Long.parseLong(parts[6]));
             }
@@ -153,77 +631,136 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     @Override
-    public Task createTask(Task task) {
+    public synchronized Task createTask(Task task) {
         Task result = super.createTask(task);
-        save();
+        persist(putRecord(result));
         return result;
     }
 
     @Override
-    public Epic createEpic(Epic epic) {
+    public synchronized Epic createEpic(Epic epic) {
         Epic result = super.createEpic(epic);
-        save();
+        persist(putRecord(result));
         return result;
     }
 
     @Override
-    public Subtask createSubtask(Subtask subtask) {
+    public synchronized Subtask createSubtask(Subtask subtask) {
         Subtask result = super.createSubtask(subtask);
-        save();
+        if (result != null) {
+            persist(putRecord(result));
+        }
         return result;
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        Optional.ofNullable(tasks.get(task.getId())).ifPresent(saved -> persist(putRecord(saved)));
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        Optional.ofNullable(epics.get(epic.getId())).ifPresent(saved -> persist(putRecord(saved)));
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
+    public synchronized void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        Optional.ofNullable(subtasks.get(subtask.getId())).ifPresent(saved -> persist(putRecord(saved)));
     }
 
     @Override
-    public void deleteTask(int id) {
+    public synchronized void deleteTask(int id) {
         super.deleteTask(id);
-        save();
+        persist("DEL,TASK," + id);
     }
 
     @Override
-    public void deleteEpic(int id) {
+    public synchronized void deleteEpic(int id) {
+        List<String> records = new ArrayList<>();
+        Optional.ofNullable(epics.get(id))
+                .ifPresent(epic -> epic.forEachSubtaskId(subtaskId -> records.add("DEL,SUBTASK," + subtaskId)));
+        records.add("DEL,EPIC," + id);
         super.deleteEpic(id);
-        save();
+        persist(records.toArray(new String[0]));
     }
 
     @Override
-    public void deleteSubtask(int id) {
+    public synchronized void deleteSubtask(int id) {
         super.deleteSubtask(id);
-        save();
+        persist("DEL,SUBTASK," + id);
+    }
+
+    @Override
+    public synchronized List<Task> createAll(List<? extends Task> items) {
+        List<Task> created = super.createAll(items);
+        persist(created.stream().map(this::putRecord).toArray(String[]::new));
+        return created;
+    }
+
+    @Override
+    public synchronized void updateAll(List<? extends Task> items) {
+        super.updateAll(items);
+        List<String> records = new ArrayList<>();
+        for (Task item : items) {
+            Task saved = item instanceof Epic ? epics.get(item.getId())
+                    : item instanceof Subtask ? subtasks.get(item.getId()) : tasks.get(item.getId());
+            if (saved != null) {
+                records.add(putRecord(saved));
+            }
+        }
+        persist(records.toArray(new String[0]));
+    }
+
+    @Override
+    public synchronized void deleteAll(Collection<Integer> ids) {
+        List<String> records = new ArrayList<>();
+        for (int id : ids) {
+            if (tasks.containsKey(id)) {
+                records.add("DEL,TASK," + id);
+            } else if (epics.containsKey(id)) {
+                epics.get(id).forEachSubtaskId(subtaskId -> records.add("DEL,SUBTASK," + subtaskId));
+                records.add("DEL,EPIC," + id);
+            } else if (subtasks.containsKey(id)) {
+                records.add("DEL,SUBTASK," + id);
+            }
+        }
+        super.deleteAll(ids);
+        persist(records.toArray(new String[0]));
+    }
+
+    @Override
+    public synchronized <T> T inTransaction(Supplier<T> work) {
+        transactionDepth++;
+        try {
+            return super.inTransaction(work);
+        } finally {
+            // уже примененные операции сохраняются, даже если work завершилась исключением
+            if (--transactionDepth == 0 && transactionChanged) {
+                transactionChanged = false;
+                pendingOperations++;
+                flushIfDue();
+            }
+        }
     }
 
     @Override
-    public void deleteTasks() {
+    public synchronized void deleteTasks() {
         super.deleteTasks();
-        save();
+        persist("CLEAR,TASK");
     }
 
     @Override
-    public void deleteEpics() {
+    public synchronized void deleteEpics() {
         super.deleteEpics();
-        save();
+        persist("CLEAR,EPIC");
     }
 
     @Override
-    public void deleteSubtasks() {
+    public synchronized void deleteSubtasks() {
         super.deleteSubtasks();
-        save();
+        persist("CLEAR,SUBTASK");
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,35 @@
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 public class GsonFactory {
+    // Компактный JSON без отступов - для ответов сервера и файлов
     public static Gson createGson() {
+        return builder().create();
+    }
+
+    // Отформатированный JSON для чтения человеком
+    public static Gson createPrettyGson() {
+        return builder().setPrettyPrinting().create();
+    }
+
+    private static GsonBuilder builder() {
         return new GsonBuilder()
-                .setPrettyPrinting()
                 .registerTypeAdapter(Duration.class, new DurationAdapter())
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
+                .registerTypeAdapter(new TypeToken<PersistentSortedSet<Integer>>() { }.getType(), new IdSetAdapter())
+                .registerTypeAdapter(TaskStatus.class, new TaskStatusAdapter());
     }
 
     private static class DurationAdapter extends TypeAdapter<Duration> {
@@ -60,4 +75,67 @@ public class GsonFactory {
             return LocalDateTime.parse(dateString, formatter);
         }
     }
-}
\ No newline at end of file
+
+    // id подзадач эпика - массив чисел
+    private static class IdSetAdapter extends TypeAdapter<PersistentSortedSet<Integer>> {
+        @Override
+        public void write(JsonWriter writer, PersistentSortedSet<Integer> value) throws IOException {
+            if (value == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginArray();
+            for (int id : value.asList()) {
+                writer.value(id);
+            }
+            writer.endArray();
+        }
+
+        @Override
+        public PersistentSortedSet<Integer> read(JsonReader reader) throws IOException {
+            if (reader.peek() == com.google.gson.stream.JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            List<Integer> ids = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                ids.add(reader.nextInt());
+            }
+            reader.endArray();
+            ids.sort(Comparator.naturalOrder());
+            List<Integer> distinct = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).equals(id)) {
+                    distinct.add(id);
+                }
+            }
+            return PersistentSortedSet.fromSorted(Comparator.naturalOrder(), distinct);
+        }
+    }
+
+    // Стандартный адаптер enum молча превращает неизвестный статус в null; здесь это ошибка разбора (400)
+    private static class TaskStatusAdapter extends TypeAdapter<TaskStatus> {
+        @Override
+        public void write(JsonWriter writer, TaskStatus value) throws IOException {
+            if (value == null) {
+                writer.nullValue();
+            } else {
+                writer.value(value.name());
+            }
+        }
+
+        @Override
+        public TaskStatus read(JsonReader reader) throws IOException {
+            if (reader.peek() == com.google.gson.stream.JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            try {
+                return TaskStatus.parse(reader.nextString());
+            } catch (IllegalArgumentException e) {
+                throw new JsonParseException(e.getMessage(), e);
+            }
+        }
+    }
+}
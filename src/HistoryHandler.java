@@ -1,28 +1,13 @@
 import com.google.gson.Gson;
-import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
-import java.io.IOException;
 
-public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
+public class HistoryHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
     private final Gson gson;
 
     public HistoryHandler(TaskManager taskManager) {
         this.taskManager = taskManager;
         this.gson = GsonFactory.createGson();
-    }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            if ("GET".equals(exchange.getRequestMethod())) {
-                String response = gson.toJson(taskManager.getHistory());
-                sendSuccess(exchange, response);
-            } else {
-                sendBadRequest(exchange, "Method not allowed");
-            }
-        } catch (Exception e) {
-            sendInternalError(exchange, e.getMessage());
-        }
+        router.get("/history", (exchange, params) -> sendJsonList(exchange, gson, taskManager.getHistory()));
     }
-}
\ No newline at end of file
+}
@@ -1,24 +1,54 @@
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class HttpTaskServer {
-    private static final int PORT = 8081; // на 8080 порту не работает
     private final HttpServer server;
     private final TaskManager taskManager;
+    private final ExecutorService executor;
+    private final ResponseCache responseCache;
+    private final AccessLogFilter accessLog;
+    private final ChangeFeed changeFeed;
+    private EventsHandler eventsHandler;
+    private final AsyncLogger logger = AsyncLogger.getDefault();
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, ServerConfig.defaults());
+    }
+
+    public HttpTaskServer(TaskManager taskManager, ServerConfig config) throws IOException {
         this.taskManager = taskManager;
-        this.server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this.server = HttpServer.create(new InetSocketAddress(config.getPort()), config.getBacklog());
+        this.executor = config.createExecutor();
+        server.setExecutor(executor);
+        this.responseCache = config.createResponseCache();
+        if (responseCache != null) {
+            taskManager.addChangeListener(responseCache);
+        }
+
+        this.accessLog = new AccessLogFilter(logger, config.getAccessLogSampleEvery());
+        this.changeFeed = config.createChangeFeed();
+        if (changeFeed != null) {
+            taskManager.addChangeListener(changeFeed);
+        }
 
         // обработчики
-        server.createContext("/tasks", new TasksHandler(taskManager));
-        server.createContext("/subtasks", new SubtasksHandler(taskManager));
-        server.createContext("/epics", new EpicsHandler(taskManager));
-        server.createContext("/history", new HistoryHandler(taskManager));
-        server.createContext("/prioritized", new PrioritizedHandler(taskManager));
+        register("/tasks", new TasksHandler(taskManager, responseCache));
+        register("/subtasks", new SubtasksHandler(taskManager, responseCache));
+        register("/epics", new EpicsHandler(taskManager, responseCache));
+        register("/history", new HistoryHandler(taskManager));
+        register("/prioritized", new PrioritizedHandler(taskManager, responseCache));
+        register("/batch", new BatchHandler(taskManager));
+        register("/search", new SearchHandler(taskManager));
+        if (changeFeed != null) {
+            eventsHandler = new EventsHandler(taskManager, changeFeed);
+            register("/events", eventsHandler);
+        }
 
-        System.out.println("Handlers registered successfully");
+        logger.debug("handlers_registered");
     }
 
     public HttpTaskServer() throws IOException {
@@ -27,11 +57,54 @@ public class HttpTaskServer {
 
     public void start() {
         server.start();
-        System.out.println("HTTP server started on port " + PORT);
+        logger.info("server_started", "port", getPort());
+    }
+
+    // null, если кэш ответов не включен в ServerConfig
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    // null, если поток событий не включен в ServerConfig
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
     }
 
     public void stop() {
+        int port = getPort();
+        if (changeFeed != null) {
+            // открытые потоки событий завершаются, иначе их обработчики не дадут остановить исполнитель
+            changeFeed.close();
+            taskManager.removeChangeListener(changeFeed);
+            eventsHandler.close();
+        }
         server.stop(0);
-        System.out.println("HTTP server stopped");
+        if (executor != null) {
+            // даем начатым запросам завершиться, прежде чем сбрасывать менеджер
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (responseCache != null) {
+            taskManager.removeChangeListener(responseCache);
+        }
+        // дописываем изменения, которые менеджер еще не сбросил на диск, и останавливаем его фоновый сброс
+        if (taskManager instanceof FileBackedTaskManager) {
+            ((FileBackedTaskManager) taskManager).close();
+        } else {
+            taskManager.flush();
+        }
+        logger.info("server_stopped", "port", port);
+    }
+
+    private void register(String path, HttpHandler handler) {
+        server.createContext(path, handler).getFilters().add(accessLog);
     }
 }
\ No newline at end of file
@@ -1,70 +1,388 @@
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 public class InMemoryTaskManager implements TaskManager {
     protected int nextId = 1;
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
+    protected final OrderedIntMap<Task> tasks = new OrderedIntMap<>();
+    protected final OrderedIntMap<Epic> epics = new OrderedIntMap<>();
+    protected final OrderedIntMap<Subtask> subtasks = new OrderedIntMap<>();
     protected final HistoryManager historyManager;
-    protected final Set<Task> prioritizedTasks = new TreeSet<>(
-            Comparator.comparing(Task::getStartTime,
-                            Comparator.nullsLast(Comparator.naturalOrder()))
-                    .thenComparing(Task::getId)
-    );
+    protected static final Comparator<Task> PRIORITY_ORDER = Comparator.comparing(Task::getStartTime,
+                    Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Task::getId);
+    protected final NavigableSet<Task> prioritizedTasks = new TreeSet<>(PRIORITY_ORDER);
+    protected final TimeSlotIndex timeSlots = new TimeSlotIndex();
+    // вторичные индексы статус -> id, обновляются в touch при каждом изменении
+    private final StatusIndex<Task> taskStatuses = new StatusIndex<>(tasks);
+    private final StatusIndex<Epic> epicStatuses = new StatusIndex<>(epics);
+    private final StatusIndex<Subtask> subtaskStatuses = new StatusIndex<>(subtasks);
+    // полнотекстовый индекс по всем трем коллекциям: id уникальны в пределах менеджера
+    private final TextIndex textIndex = new TextIndex();
+    // версии растут монотонно: коллекция и сущность получают значение общей версии на момент изменения
+    private long version;
+    private long tasksVersion;
+    private long epicsVersion;
+    private long subtasksVersion;
+    private final List<Consumer<TaskChange>> listeners = new CopyOnWriteArrayList<>();
+    // неизменяемые версии коллекций для snapshot(): каждое изменение строит новую версию за O(log n),
+    // соседние версии делят узлы. В них лежат копии сущностей на момент изменения, а не рабочие объекты,
+    // которые писатель меняет на месте. Изменяемые коллекции выше остаются рабочими структурами писателя
+    private PersistentSortedMap<Integer, Task> taskState = PersistentSortedMap.empty();
+    private PersistentSortedMap<Integer, Epic> epicState = PersistentSortedMap.empty();
+    private PersistentSortedMap<Integer, Subtask> subtaskState = PersistentSortedMap.empty();
+    private PersistentSortedSet<Task> prioritizedState = PersistentSortedSet.empty(PRIORITY_ORDER);
+    // срез публикуется писателем после каждого изменения; snapshot() только читает поле
+    private volatile BoardSnapshot current = new BoardSnapshot(taskState, epicState, subtaskState,
+            prioritizedState, 0);
 
     public InMemoryTaskManager(HistoryManager historyManager) {
         this.historyManager = historyManager;
     }
 
+    // Списки - неизменяемые представления среза, без копирования коллекций
     @Override
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks.values());
+        return snapshot().getTasks();
     }
 
     @Override
     public List<Epic> getEpics() {
-        return new ArrayList<>(epics.values());
+        return snapshot().getEpics();
     }
 
     @Override
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return snapshot().getSubtasks();
+    }
+
+    // Согласованный срез всех коллекций; повторный вызов без изменений возвращает тот же срез
+    @Override
+    public BoardSnapshot snapshot() {
+        return current;
+    }
+
+    // Страницы по возрастанию id: бинарный поиск позиции after и чтение limit элементов
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return tasks.page(afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return epics.page(afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return subtasks.page(afterId, limit);
+    }
+
+    // Страница приоритетного списка после задачи с ключом (afterStart, afterId); afterStart == null - с начала
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        NavigableSet<Task> tail = afterStart == null ? prioritizedTasks
+                : prioritizedTasks.tailSet(probe(afterStart, afterId), false);
+        List<Task> page = new ArrayList<>();
+        Iterator<Task> iterator = tail.iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    // Задачи, начавшиеся в [from, to), по приоритету; null - граница не задана. Без includeStraddling
+    // задача должна и закончиться не позже to, с ним добавляются и пересекающие границы.
+    // Интервалы не перекрываются, поэтому через from переходит не больше одного - O(log n + k)
+    @Override
+    public List<Task> getPrioritizedInRange(LocalDateTime from, LocalDateTime to, boolean includeStraddling) {
+        NavigableSet<Task> range = startingBetween(from, to);
+        List<Task> result = new ArrayList<>();
+        if (includeStraddling && from != null) {
+            Task straddling = timeSlots.covering(from);
+            if (straddling != null) {
+                result.add(straddling);
+            }
+        }
+        for (Task task : range) {
+            // задача без продолжительности - точка в момент начала
+            LocalDateTime end = task.getEndTime() != null ? task.getEndTime() : task.getStartTime();
+            if (includeStraddling || to == null || !end.isAfter(to)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    // Полнотекстовый поиск по названиям и описаниям, лучшие совпадения первыми
+    @Override
+    public List<Task> search(String query, int limit) {
+        int[] ids = textIndex.search(query, limit);
+        List<Task> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            found.add(item(id));
+        }
+        return found;
+    }
+
+    // Выборка по запросу: кандидаты берутся через самый узкий индекс, остальные условия проверяются у них.
+    // Если индекс отдает кандидатов в запрошенном порядке, обход останавливается на limit, иначе - сортировка
+    @Override
+    public List<Task> query(TaskQuery query) {
+        TaskQuery.Access access = plan(query);
+        boolean ordered = (query.getOrder() == TaskQuery.Order.START) == (access == TaskQuery.Access.TIME_INDEX);
+        int limit = ordered ? query.getLimit() : Integer.MAX_VALUE;
+        boolean checkText = query.getText() != null && access != TaskQuery.Access.TEXT_INDEX;
+        List<Task> found = new ArrayList<>();
+        scan(query, access, item -> {
+            if (item.getId() > query.getAfterId() && query.matchesFields(item)
+                    && (!checkText || textIndex.matches(item.getId(), query.getText()))) {
+                found.add(item);
+            }
+            return found.size() < limit;
+        });
+        if (ordered) {
+            return found;
+        }
+        found.sort(query.getOrder() == TaskQuery.Order.START ? PRIORITY_ORDER : Comparator.comparingInt(Task::getId));
+        return found.size() > query.getLimit() ? new ArrayList<>(found.subList(0, query.getLimit())) : found;
+    }
+
+    // Путь доступа, который выберет query
+    public TaskQuery.Access explain(TaskQuery query) {
+        return plan(query);
+    }
+
+    // Стоимость пути - число кандидатов, которые придется проверить; полный обход коллекции - запасной вариант
+    private TaskQuery.Access plan(TaskQuery query) {
+        TaskQuery.Access best = TaskQuery.Access.ID_SCAN;
+        long bestCost = collection(query.getType()).size();
+        if (query.getEpicId() != null) {
+            Epic epic = epics.get(query.getEpicId());
+            long cost = epic == null ? 0 : epic.getSubtaskIds().size();
+            if (cost < bestCost) {
+                best = TaskQuery.Access.EPIC_MEMBERS;
+                bestCost = cost;
+            }
+        }
+        if (query.getStatus() != null) {
+            long cost = statusIndex(query.getType()).count(query.getStatus());
+            if (cost < bestCost) {
+                best = TaskQuery.Access.STATUS_INDEX;
+                bestCost = cost;
+            }
+        }
+        if (query.getText() != null) {
+            long cost = textIndex.estimate(query.getText());
+            if (cost < bestCost) {
+                best = TaskQuery.Access.TEXT_INDEX;
+                bestCost = cost;
+            }
+        }
+        // эпиков нет в приоритетном списке; размер поддиапазона TreeSet не известен заранее,
+        // поэтому он считается только до стоимости лучшего из найденных путей
+        if (query.hasTimeWindow() && query.getType() != TaskType.EPIC) {
+            long cost = 0;
+            Iterator<Task> iterator = startingBetween(query.getFrom(), query.getTo()).iterator();
+            while (cost < bestCost && iterator.hasNext()) {
+                iterator.next();
+                cost++;
+            }
+            if (cost < bestCost) {
+                best = TaskQuery.Access.TIME_INDEX;
+            }
+        }
+        return best;
+    }
+
+    // Передает кандидатов пути доступа в visitor, пока он возвращает true
+    private void scan(TaskQuery query, TaskQuery.Access access, Predicate<Task> visitor) {
+        int afterId = query.getAfterId();
+        switch (access) {
+            case EPIC_MEMBERS:
+                Epic epic = epics.get(query.getEpicId());
+                if (epic != null) {
+                    for (int id : epic.getSubtaskIds()) {
+                        if (id > afterId && !visitor.test(subtasks.get(id))) {
+                            return;
+                        }
+                    }
+                }
+                break;
+            case STATUS_INDEX:
+                statusIndex(query.getType()).scanAfter(query.getStatus(), afterId, visitor);
+                break;
+            case TEXT_INDEX:
+                for (int id : textIndex.matching(query.getText())) {
+                    if (id > afterId && !visitor.test(item(id))) {
+                        return;
+                    }
+                }
+                break;
+            case TIME_INDEX:
+                for (Task task : startingBetween(query.getFrom(), query.getTo())) {
+                    if (!visitor.test(task)) {
+                        return;
+                    }
+                }
+                break;
+            default:
+                collection(query.getType()).scanAfter(afterId, visitor);
+        }
+    }
+
+    private OrderedIntMap<? extends Task> collection(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epics;
+            case SUBTASK:
+                return subtasks;
+            default:
+                return tasks;
+        }
+    }
+
+    private StatusIndex<? extends Task> statusIndex(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epicStatuses;
+            case SUBTASK:
+                return subtaskStatuses;
+            default:
+                return taskStatuses;
+        }
+    }
+
+    // сущность любого типа по id
+    private Task item(int id) {
+        Task item = tasks.get(id);
+        if (item == null) {
+            item = epics.get(id);
+        }
+        if (item == null) {
+            item = subtasks.get(id);
+        }
+        return item;
+    }
+
+    // задачи и подзадачи, начавшиеся в [from, to), по приоритету; null - граница не задана
+    private NavigableSet<Task> startingBetween(LocalDateTime from, LocalDateTime to) {
+        NavigableSet<Task> range = prioritizedTasks;
+        if (from != null) {
+            range = range.tailSet(probe(from, Integer.MIN_VALUE), true);
+        }
+        if (to != null) {
+            range = range.headSet(probe(to, Integer.MIN_VALUE), false);
+        }
+        return range;
+    }
+
+    // Выборка по статусу через индекс, по возрастанию id, как и обычные страницы
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status, int afterId, int limit) {
+        return taskStatuses.page(status, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(TaskStatus status, int afterId, int limit) {
+        return epicStatuses.page(status, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status, int afterId, int limit) {
+        return subtaskStatuses.page(status, afterId, limit);
+    }
+
+    @Override
+    public void addChangeListener(Consumer<TaskChange> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(Consumer<TaskChange> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public long getTasksVersion() {
+        return tasksVersion;
+    }
+
+    @Override
+    public long getEpicsVersion() {
+        return epicsVersion;
+    }
+
+    @Override
+    public long getSubtasksVersion() {
+        return subtasksVersion;
     }
 
     @Override
     public void deleteTasks() {
         // Лямбда для удаления из истории
-        tasks.keySet().forEach(historyManager::remove);
-        tasks.values().forEach(prioritizedTasks::remove);
+        tasks.forEachKey(historyManager::remove);
+        tasks.forEachKey(textIndex::remove);
+        tasks.values().forEach(this::removePrioritized);
         tasks.clear();
+        taskStatuses.clear();
+        taskState.values().forEach(this::unschedule);
+        taskState = taskState.clear();
+        tasksVersion = ++version;
+        publish();
+        notifyListeners(new TaskChange(TaskChange.Kind.CLEARED, TaskType.TASK, 0, version));
     }
 
     @Override
     public void deleteEpics() {
         // Лямбда для удаления эпиков и подзадач
-        epics.keySet().forEach(historyManager::remove);
-        subtasks.keySet().forEach(historyManager::remove);
-        subtasks.values().forEach(prioritizedTasks::remove);
+        epics.forEachKey(historyManager::remove);
+        subtasks.forEachKey(historyManager::remove);
+        epics.forEachKey(textIndex::remove);
+        subtasks.forEachKey(textIndex::remove);
+        subtasks.values().forEach(this::removePrioritized);
         epics.clear();
         subtasks.clear();
+        epicStatuses.clear();
+        subtaskStatuses.clear();
+        subtaskState.values().forEach(this::unschedule);
+        epicState = epicState.clear();
+        subtaskState = subtaskState.clear();
+        epicsVersion = ++version;
+        subtasksVersion = version;
+        publish();
+        notifyListeners(new TaskChange(TaskChange.Kind.CLEARED, TaskType.SUBTASK, 0, version));
+        notifyListeners(new TaskChange(TaskChange.Kind.CLEARED, TaskType.EPIC, 0, version));
     }
 
     @Override
     public void deleteSubtasks() {
         // Лямбда для удаления подзадач
-        subtasks.keySet().forEach(historyManager::remove);
-        subtasks.values().forEach(prioritizedTasks::remove);
+        subtasks.forEachKey(historyManager::remove);
+        subtasks.forEachKey(textIndex::remove);
+        subtasks.values().forEach(this::removePrioritized);
         subtasks.clear();
+        subtaskStatuses.clear();
+        subtaskState.values().forEach(this::unschedule);
+        subtaskState = subtaskState.clear();
 
         // Обновление эпиков с помощью лямбда
-        epics.values().forEach(epic -> {
-            epic.getSubtaskIds().clear();
-            updateEpicStatus(epic.getId());
-            updateEpicTimes(epic.getId());
-        });
+        epics.values().forEach(Epic::clearSubtasks);
+        subtasksVersion = ++version;
+        publish();
+        notifyListeners(new TaskChange(TaskChange.Kind.CLEARED, TaskType.SUBTASK, 0, version));
+        epics.values().forEach(epic -> touch(TaskChange.Kind.UPDATED, epic));
     }
 
     @Override
@@ -94,17 +412,13 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Задача пересекается по времени с существующей задачей");
         }
 
-        task.setId(nextId++);
-        tasks.put(task.getId(), task);
-        Optional.ofNullable(task.getStartTime())
-                .ifPresent(st -> prioritizedTasks.add(task));
+        insertTask(task);
         return task;
     }
 
     @Override
     public Epic createEpic(Epic epic) {
-        epic.setId(nextId++);
-        epics.put(epic.getId(), epic);
+        insertEpic(epic);
         return epic;
     }
 
@@ -118,13 +432,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Подзадача пересекается по времени с существующей задачей");
         }
 
-        subtask.setId(nextId++);
-        subtasks.put(subtask.getId(), subtask);
-        epics.get(subtask.getEpicId()).addSubtaskId(subtask.getId());
-        Optional.ofNullable(subtask.getStartTime())
-                .ifPresent(st -> prioritizedTasks.add(subtask));
-        updateEpicStatus(subtask.getEpicId());
-        updateEpicTimes(subtask.getEpicId());
+        insertSubtask(subtask);
         return subtask;
     }
 
@@ -132,16 +440,14 @@ public class InMemoryTaskManager implements TaskManager {
     public void updateTask(Task task) {
         Optional.ofNullable(tasks.get(task.getId()))
                 .ifPresent(existingTask -> {
-                    prioritizedTasks.remove(existingTask);
+                    removePrioritized(existingTask);
 
                     if (hasTimeOverlap(task)) {
-                        prioritizedTasks.add(existingTask);
+                        addPrioritized(existingTask);
                         throw new IllegalArgumentException("Задача пересекается по времени с существующей задачей");
                     }
 
-                    tasks.put(task.getId(), task);
-                    Optional.ofNullable(task.getStartTime())
-                            .ifPresent(st -> prioritizedTasks.add(task));
+                    replaceTask(task);
                 });
     }
 
@@ -151,6 +457,7 @@ public class InMemoryTaskManager implements TaskManager {
                 .ifPresent(savedEpic -> {
                     savedEpic.setTitle(epic.getTitle());
                     savedEpic.setDescription(epic.getDescription());
+                    touch(TaskChange.Kind.UPDATED, savedEpic);
                 });
     }
 
@@ -158,83 +465,335 @@ public class InMemoryTaskManager implements TaskManager {
     public void updateSubtask(Subtask subtask) {
         Optional.ofNullable(subtasks.get(subtask.getId()))
                 .ifPresent(savedSubtask -> {
-                    prioritizedTasks.remove(savedSubtask);
+                    removePrioritized(savedSubtask);
 
                     if (hasTimeOverlap(subtask)) {
-                        prioritizedTasks.add(savedSubtask);
+                        addPrioritized(savedSubtask);
                         throw new IllegalArgumentException("Подзадача пересекается по времени с существующей задачей");
                     }
 
 
-                    handleEpicChange(savedSubtask, subtask);
-
-                    subtasks.put(subtask.getId(), subtask);
-                    Optional.ofNullable(subtask.getStartTime())
-                            .ifPresent(st -> prioritizedTasks.add(subtask));
-                    updateEpicStatus(subtask.getEpicId());
-                    updateEpicTimes(subtask.getEpicId());
+                    replaceSubtask(savedSubtask, subtask);
                 });
     }
 
+    @Override
+    public List<Task> createAll(List<? extends Task> items) {
+        // сначала проверяем весь пакет, чтобы при ошибке не применить его частично
+        TimeSlotIndex batchSlots = new TimeSlotIndex();
+        for (int i = 0; i < items.size(); i++) {
+            Task item = items.get(i);
+            if (item instanceof Subtask && !epics.containsKey(((Subtask) item).getEpicId())) {
+                throw new IllegalArgumentException("Эпик " + ((Subtask) item).getEpicId() + " не найден");
+            }
+            if (!(item instanceof Epic)) {
+                // у новых задач еще нет id, поэтому проверяем копию интервала с уникальным временным id
+                checkBatchSlot(slotProbe(item, -i - 1), batchSlots);
+            }
+        }
+
+        List<Task> created = new ArrayList<>(items.size());
+        for (Task item : items) {
+            if (item instanceof Epic) {
+                insertEpic((Epic) item);
+            } else if (item instanceof Subtask) {
+                insertSubtask((Subtask) item);
+            } else {
+                insertTask(item);
+            }
+            created.add(item);
+        }
+        return created;
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> items) {
+        List<Task> existing = new ArrayList<>();
+        List<Task> updates = new ArrayList<>();
+        for (Task item : items) {
+            Task saved = item instanceof Epic ? epics.get(item.getId())
+                    : item instanceof Subtask ? subtasks.get(item.getId()) : tasks.get(item.getId());
+            if (saved != null) {
+                existing.add(saved);
+                updates.add(item);
+            }
+        }
+
+        // прежние интервалы освобождаются на время проверки: задачи пакета могут меняться слотами.
+        // Время эпика - сводка его подзадач, в индексах времени эпиков нет
+        List<Task> scheduled = new ArrayList<>(existing.size());
+        existing.stream().filter(saved -> !(saved instanceof Epic)).forEach(scheduled::add);
+        scheduled.forEach(this::removePrioritized);
+        try {
+            TimeSlotIndex batchSlots = new TimeSlotIndex();
+            for (Task item : updates) {
+                if (!(item instanceof Epic)) {
+                    checkBatchSlot(item, batchSlots);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            scheduled.forEach(this::addPrioritized);
+            throw e;
+        }
+
+        for (int i = 0; i < updates.size(); i++) {
+            Task item = updates.get(i);
+            if (item instanceof Epic) {
+                Epic savedEpic = (Epic) existing.get(i);
+                savedEpic.setTitle(item.getTitle());
+                savedEpic.setDescription(item.getDescription());
+                touch(TaskChange.Kind.UPDATED, savedEpic);
+            } else if (item instanceof Subtask) {
+                replaceSubtask((Subtask) existing.get(i), (Subtask) item);
+            } else {
+                replaceTask(item);
+            }
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        for (int id : ids) {
+            if (tasks.containsKey(id)) {
+                removeTask(id);
+            } else if (epics.containsKey(id)) {
+                removeEpic(id);
+            } else {
+                removeSubtask(id);
+            }
+        }
+    }
+
+    @Override
+    public <T> T inTransaction(Supplier<T> work) {
+        return work.get();
+    }
+
+    private void checkBatchSlot(Task item, TimeSlotIndex batchSlots) {
+        if (timeSlots.overlaps(item) || batchSlots.overlaps(item)) {
+            throw new IllegalArgumentException("Задача пакета пересекается по времени с другой задачей");
+        }
+        batchSlots.add(item);
+    }
+
+    private static Task slotProbe(Task item, int id) {
+        return new Task(id, null, null, null, item.getDuration(), item.getStartTime());
+    }
+
+    private void insertTask(Task task) {
+        task.setId(nextId++);
+        tasks.put(task.getId(), task);
+        addPrioritized(task);
+        touch(TaskChange.Kind.CREATED, task);
+    }
+
+    private void insertEpic(Epic epic) {
+        epic.setId(nextId++);
+        epics.put(epic.getId(), epic);
+        touch(TaskChange.Kind.CREATED, epic);
+    }
+
+    private void insertSubtask(Subtask subtask) {
+        subtask.setId(nextId++);
+        subtasks.put(subtask.getId(), subtask);
+        Epic epic = epics.get(subtask.getEpicId());
+        epic.attachSubtask(subtask);
+        addPrioritized(subtask);
+        touch(TaskChange.Kind.CREATED, subtask);
+        touch(TaskChange.Kind.UPDATED, epic);
+    }
+
+    private void replaceTask(Task task) {
+        tasks.put(task.getId(), task);
+        addPrioritized(task);
+        touch(TaskChange.Kind.UPDATED, task);
+    }
+
+    private void replaceSubtask(Subtask savedSubtask, Subtask subtask) {
+        handleEpicChange(savedSubtask, subtask);
+        subtasks.put(subtask.getId(), subtask);
+        addPrioritized(subtask);
+        touch(TaskChange.Kind.UPDATED, subtask);
+    }
+
     private void handleEpicChange(Subtask savedSubtask, Subtask newSubtask) {
         if (savedSubtask.getEpicId() != newSubtask.getEpicId()) {
             Optional.ofNullable(epics.get(savedSubtask.getEpicId()))
-                    .ifPresent(epic -> epic.removeSubtaskId(savedSubtask.getId()));
+                    .ifPresent(epic -> {
+                        epic.detachSubtask(savedSubtask.getId());
+                        touch(TaskChange.Kind.UPDATED, epic);
+                    });
+        }
+        Optional.ofNullable(epics.get(newSubtask.getEpicId()))
+                .ifPresent(epic -> {
+                    epic.attachSubtask(newSubtask);
+                    touch(TaskChange.Kind.UPDATED, epic);
+                });
+    }
+
+    // Отмечает изменение сущности: общая версия растет, сущность и ее коллекция получают новое значение
+    private void touch(TaskChange.Kind kind, Task item) {
+        item.setVersion(++version);
+        TaskType type = TaskType.of(item);
+        boolean deleted = kind == TaskChange.Kind.DELETED;
+        switch (type) {
+            case EPIC:
+                epicsVersion = version;
+                indexStatus(epicStatuses, (Epic) item, deleted);
+                epicState = deleted ? epicState.remove(item.getId())
+                        : epicState.put(item.getId(), ((Epic) item).copy());
+                break;
+            case SUBTASK:
+                subtasksVersion = version;
+                indexStatus(subtaskStatuses, (Subtask) item, deleted);
+                unschedule(subtaskState.get(item.getId()));
+                subtaskState = deleted ? subtaskState.remove(item.getId())
+                        : subtaskState.put(item.getId(), schedule(((Subtask) item).copy()));
+                break;
+            default:
+                tasksVersion = version;
+                indexStatus(taskStatuses, item, deleted);
+                unschedule(taskState.get(item.getId()));
+                taskState = deleted ? taskState.remove(item.getId())
+                        : taskState.put(item.getId(), schedule(item.copy()));
+        }
+        if (deleted) {
+            textIndex.remove(item.getId());
+        } else {
+            textIndex.update(item);
+        }
+        publish();
+        notifyListeners(new TaskChange(kind, type, item.getId(), version, item));
+    }
+
+    // приоритетный список среза хранит те же копии, что и коллекции среза
+    private <V extends Task> V schedule(V copy) {
+        if (copy.getStartTime() != null) {
+            prioritizedState = prioritizedState.add(copy);
+        }
+        return copy;
+    }
+
+    private void unschedule(Task copy) {
+        if (copy != null && copy.getStartTime() != null) {
+            prioritizedState = prioritizedState.remove(copy);
+        }
+    }
+
+    private void publish() {
+        current = new BoardSnapshot(taskState, epicState, subtaskState, prioritizedState, version);
+    }
 
-            Optional.ofNullable(epics.get(newSubtask.getEpicId()))
-                    .ifPresent(epic -> epic.addSubtaskId(newSubtask.getId()));
+    // ключ поиска в prioritizedTasks
+    private static Task probe(LocalDateTime startTime, int id) {
+        return new Task(id, null, null, null, null, startTime);
+    }
+
+    private static <V extends Task> void indexStatus(StatusIndex<V> index, V item, boolean deleted) {
+        if (deleted) {
+            index.remove(item.getId());
+        } else {
+            index.update(item);
+        }
+    }
+
+    // Вторичные индексы для коллекций, заполненных в обход изменяющих операций (загрузка из файла)
+    protected void rebuildSecondaryIndexes() {
+        taskStatuses.rebuild();
+        epicStatuses.rebuild();
+        subtaskStatuses.rebuild();
+        textIndex.clear();
+        forEachItem(textIndex::update);
+        taskState = copiedState(tasks, Task::copy);
+        epicState = copiedState(epics, Epic::copy);
+        subtaskState = copiedState(subtasks, Subtask::copy);
+        // порядок копий тот же, что у prioritizedTasks: время начала и id совпадают
+        List<Task> scheduled = new ArrayList<>(prioritizedTasks.size());
+        prioritizedTasks.forEach(task -> scheduled.add(task instanceof Subtask
+                ? subtaskState.get(task.getId()) : taskState.get(task.getId())));
+        prioritizedState = PersistentSortedSet.fromSorted(PRIORITY_ORDER, scheduled);
+        publish();
+    }
+
+    private static <V extends Task> PersistentSortedMap<Integer, V> copiedState(OrderedIntMap<V> items,
+                                                                                UnaryOperator<V> copier) {
+        List<Integer> ids = new ArrayList<>(items.size());
+        List<V> copies = new ArrayList<>(items.size());
+        items.scanAfter(0, item -> ids.add(item.getId()) && copies.add(copier.apply(item)));
+        return PersistentSortedMap.fromSorted(Comparator.naturalOrder(), ids, copies);
+    }
+
+    private void notifyListeners(TaskChange change) {
+        for (Consumer<TaskChange> listener : listeners) {
+            listener.accept(change);
         }
     }
 
     @Override
     public void deleteTask(int id) {
+        removeTask(id);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        removeEpic(id);
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        removeSubtask(id);
+    }
+
+    private void removeTask(int id) {
         Optional.ofNullable(tasks.remove(id))
                 .ifPresent(task -> {
-                    prioritizedTasks.remove(task);
+                    removePrioritized(task);
                     historyManager.remove(id);
+                    touch(TaskChange.Kind.DELETED, task);
                 });
     }
 
-    @Override
-    public void deleteEpic(int id) {
+    private void removeEpic(int id) {
         Optional.ofNullable(epics.remove(id))
                 .ifPresent(epic -> {
                     historyManager.remove(id);
                     // Лямбда для удаления всех подзадач эпика
-                    epic.getSubtaskIds().forEach(subtaskId -> {
+                    epic.forEachSubtaskId(subtaskId -> {
                         Optional.ofNullable(subtasks.remove(subtaskId))
                                 .ifPresent(subtask -> {
-                                    prioritizedTasks.remove(subtask);
+                                    removePrioritized(subtask);
                                     historyManager.remove(subtaskId);
+                                    touch(TaskChange.Kind.DELETED, subtask);
                                 });
                     });
+                    touch(TaskChange.Kind.DELETED, epic);
                 });
     }
 
-    @Override
-    public void deleteSubtask(int id) {
+    private void removeSubtask(int id) {
         Optional.ofNullable(subtasks.remove(id))
                 .ifPresent(subtask -> {
-                    prioritizedTasks.remove(subtask);
+                    removePrioritized(subtask);
                     historyManager.remove(id);
+                    touch(TaskChange.Kind.DELETED, subtask);
                     Optional.ofNullable(epics.get(subtask.getEpicId()))
                             .ifPresent(epic -> {
-                                epic.removeSubtaskId(id);
-                                updateEpicStatus(epic.getId());
-                                updateEpicTimes(epic.getId());
+                                epic.detachSubtask(id);
+                                touch(TaskChange.Kind.UPDATED, epic);
                             });
                 });
     }
 
     @Override
     public List<Subtask> getEpicSubtasks(int epicId) {
-        return Optional.ofNullable(epics.get(epicId))
-                .map(Epic::getSubtaskIds)
-                .orElse(Collections.emptyList())
-                .stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return Collections.emptyList();
+        }
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtaskIds().size());
+        epic.forEachSubtaskId(subtaskId -> Optional.ofNullable(subtasks.get(subtaskId))
+                .ifPresent(epicSubtasks::add));
+        return epicSubtasks;
     }
 
     @Override
@@ -244,7 +803,7 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return snapshot().getPrioritizedTasks();
     }
 
     @Override
@@ -263,77 +822,136 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public boolean hasTimeOverlap(Task task) {
-        return prioritizedTasks.stream()
-                .anyMatch(existingTask -> isTasksIntersect(task, existingTask));
+        return task != null && timeSlots.overlaps(task);
     }
 
-    protected void updateEpicStatus(int epicId) {
-        Optional.ofNullable(epics.get(epicId))
-                .ifPresent(epic -> {
-                    List<Subtask> epicSubtasks = getEpicSubtasks(epicId);
-
-                    if (epicSubtasks.isEmpty()) {
-                        epic.setStatus("NEW");
-                        return;
-                    }
-
-                    //проверки статусов
-                    boolean allNew = epicSubtasks.stream()
-                            .allMatch(subtask -> "NEW".equals(subtask.getStatus()));
-
-                    boolean allDone = epicSubtasks.stream()
-                            .allMatch(subtask -> "DONE".equals(subtask.getStatus()));
+    @Override
+    public void flush() {
+        // состояние хранится только в памяти, сбрасывать нечего
+    }
 
-                    if (allNew) {
-                        epic.setStatus("NEW");
-                    } else if (allDone) {
-                        epic.setStatus("DONE");
-                    } else {
-                        epic.setStatus("IN_PROGRESS");
-                    }
-                });
+    protected void addPrioritized(Task task) {
+        if (task.getStartTime() != null) {
+            prioritizedTasks.add(task);
+            timeSlots.add(task);
+        }
     }
 
-    protected void updateEpicTimes(int epicId) {
-        Optional.ofNullable(epics.get(epicId))
-                .ifPresent(epic -> {
-                    List<Subtask> epicSubtasks = getEpicSubtasks(epicId);
-                    epic.calculateTimes(epicSubtasks);
-                });
+    // Строит пустые индексы времени за O(n log n) одной сортировкой вместо n вставок в дерево
+    protected void buildPrioritized(Collection<? extends Task> candidates) {
+        Task[] scheduled = candidates.stream()
+                .filter(task -> task.getStartTime() != null)
+                .toArray(Task[]::new);
+        Arrays.parallelSort(scheduled, PRIORITY_ORDER);
+        List<Task> sorted = Arrays.asList(scheduled);
+        addAllSorted(prioritizedTasks, sorted);
+        timeSlots.addAllSorted(sorted);
     }
 
-    public List<Task> findTasksByPredicate(java.util.function.Predicate<Task> predicate) {
-        return getAllTasks().stream()
-                .filter(predicate)
-                .collect(Collectors.toList());
+    // Заполняет пустой набор списком, отсортированным по его компаратору. TreeSet.addAll строит дерево
+    // из SortedSet с тем же компаратором за O(n), а не вставляет элементы по одному
+    static <T> void addAllSorted(SortedSet<T> target, List<T> sorted) {
+        target.addAll(new SortedListView<>(sorted, target.comparator()));
     }
 
-    public void forEachTask(java.util.function.Consumer<Task> action) {
-        getAllTasks().forEach(action);
+    protected void removePrioritized(Task task) {
+        prioritizedTasks.remove(task);
+        timeSlots.remove(task);
     }
 
-    private List<Task> getAllTasks() {
-        List<Task> allTasks = new ArrayList<>();
-        allTasks.addAll(tasks.values());
-        allTasks.addAll(epics.values());
-        allTasks.addAll(subtasks.values());
-        return allTasks;
+    // обход коллекций без промежуточной копии всех сущностей; условие непрозрачно для индексов,
+    // поэтому для отбора по типу, статусу, эпику, времени и тексту есть query
+    public List<Task> findTasksByPredicate(Predicate<Task> predicate) {
+        List<Task> found = new ArrayList<>();
+        forEachItem(task -> {
+            if (predicate.test(task)) {
+                found.add(task);
+            }
+        });
+        return found;
     }
 
-    // группировки задач по статусу
-    public Map<String, List<Task>> groupTasksByStatus() {
-        return getAllTasks().stream()
-                .collect(Collectors.groupingBy(
-                        Task::getStatus,
-                        Collectors.toList()
-                ));
+    public void forEachTask(java.util.function.Consumer<Task> action) {
+        forEachItem(action);
+    }
+
+    // не переопределяется: ConcurrentTaskManager уже держит блокировку чтения
+    private void forEachItem(Consumer<Task> action) {
+        tasks.values().forEach(action);
+        epics.values().forEach(action);
+        subtasks.values().forEach(action);
+    }
+
+    // группировка задач по статусу из индексов: задачи, затем эпики и подзадачи, без пустых групп
+    public Map<TaskStatus, List<Task>> groupTasksByStatus() {
+        Map<TaskStatus, List<Task>> groups = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            List<Task> group = new ArrayList<>(taskStatuses.page(status, 0, Integer.MAX_VALUE));
+            group.addAll(epicStatuses.page(status, 0, Integer.MAX_VALUE));
+            group.addAll(subtaskStatuses.page(status, 0, Integer.MAX_VALUE));
+            if (!group.isEmpty()) {
+                groups.put(status, group);
+            }
+        }
+        return groups;
     }
 
-    // фильтрации задач по времени
+    // фильтрации задач по времени: кандидаты - только задачи, начавшиеся в [start, end]
     public List<Task> getTasksInTimeRange(LocalDateTime start, LocalDateTime end) {
-        return prioritizedTasks.stream()
-                .filter(task -> task.getStartTime() != null && task.getEndTime() != null)
-                .filter(task -> !task.getStartTime().isBefore(start) && !task.getEndTime().isAfter(end))
+        return prioritizedTasks.subSet(probe(start, Integer.MIN_VALUE), true, probe(end, Integer.MAX_VALUE), true)
+                .stream()
+                .filter(task -> task.getEndTime() != null && !task.getEndTime().isAfter(end))
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    // Отсортированный список в виде SortedSet - только для addAllSorted, диапазоны TreeSet.addAll не нужны
+    private static class SortedListView<T> extends AbstractSet<T> implements SortedSet<T> {
+        private final List<T> sorted;
+        private final Comparator<? super T> comparator;
+
+        SortedListView(List<T> sorted, Comparator<? super T> comparator) {
+            this.sorted = sorted;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return sorted.iterator();
+        }
+
+        @Override
+        public int size() {
+            return sorted.size();
+        }
+
+        @Override
+        public Comparator<? super T> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public T first() {
+            return sorted.get(0);
+        }
+
+        @Override
+        public T last() {
+            return sorted.get(sorted.size() - 1);
+        }
+
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedSet<T> headSet(T toElement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedSet<T> tailSet(T fromElement) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Хэш-таблица с ключами int без упаковки в Integer.
+ * Открытая адресация с линейным пробированием, удаление сдвигом назад, поэтому без "надгробий".
+ * Пустая ячейка - это null в values, поэтому null-значения не поддерживаются.
+ */
+public class IntHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, expectedSize * 4 / 3) - 1) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int[] ks = keys;
+        Object[] vs = values;
+        int mask = vs.length - 1;
+        int i = hash(key) & mask;
+        Object value;
+        while ((value = vs[i]) != null) {
+            if (ks[i] == key) {
+                return (V) value;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        int mask = values.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > values.length * 3 / 4) {
+            resize(values.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = values.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                shiftBack(i);
+                size--;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEachKey(IntConsumer action) {
+        Object[] vs = values;
+        int[] ks = keys;
+        for (int i = 0; i < vs.length; i++) {
+            if (vs[i] != null) {
+                action.accept(ks[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachEntry(EntryConsumer<? super V> action) {
+        Object[] vs = values;
+        int[] ks = keys;
+        for (int i = 0; i < vs.length; i++) {
+            if (vs[i] != null) {
+                action.accept(ks[i], (V) vs[i]);
+            }
+        }
+    }
+
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void shiftBack(int hole) {
+        int mask = values.length - 1;
+        int i = (hole + 1) & mask;
+        while (values[i] != null) {
+            int home = hash(keys[i]) & mask;
+            // элемент можно сдвинуть в дыру, только если его домашняя ячейка не лежит между дырой и им
+            boolean between = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+            if (!between) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        values[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = hash(oldKeys[j]) & mask;
+                while (newValues[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i] = oldKeys[j];
+                newValues[i] = oldValues[j];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static int hash(int key) {
+        // как в HashMap: последовательные id ложатся в соседние ячейки и обходятся по порядку
+        return key ^ (key >>> 16);
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private final Object[] vs = values;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            while (from < vs.length && vs[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < vs.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next >= vs.length) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) vs[next];
+            next = advance(next + 1);
+            return value;
+        }
+    }
+
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+}
@@ -0,0 +1,271 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Упорядоченное множество int на отсортированных блоках до BLOCK элементов.
+ * Блок ищется бинарным поиском по последним элементам, поэтому вставка и удаление сдвигают не больше
+ * одного блока и массива ссылок на блоки, а не все множество. Новые id растут монотонно и дописываются
+ * в конец последнего блока; заполненный блок при вставке в середину делится пополам.
+ */
+public class IntSortedSet {
+    private static final int BLOCK = 512;
+    private static final int[][] NO_BLOCKS = new int[0][];
+    private static final int[] NO_COUNTS = new int[0];
+
+    private int[][] blocks = NO_BLOCKS;
+    private int[] counts = NO_COUNTS;
+    private int blockCount;
+    private int size;
+
+    public boolean add(int value) {
+        int b = 0;
+        int insertAt = 0;
+        if (blockCount == 0) {
+            insertBlock(0, new int[4], 0);
+        } else {
+            b = Math.min(blockFor(value), blockCount - 1);
+            int index = Arrays.binarySearch(blocks[b], 0, counts[b], value);
+            if (index >= 0) {
+                return false;
+            }
+            insertAt = -index - 1;
+            if (counts[b] == BLOCK) {
+                if (b == blockCount - 1 && insertAt == BLOCK) {
+                    // дописывание в конец: полный блок не делится, иначе блоки останутся наполовину пустыми
+                    insertBlock(blockCount, new int[4], 0);
+                    b++;
+                    insertAt = 0;
+                } else {
+                    int half = BLOCK / 2;
+                    int[] right = new int[BLOCK];
+                    System.arraycopy(blocks[b], half, right, 0, BLOCK - half);
+                    counts[b] = half;
+                    insertBlock(b + 1, right, BLOCK - half);
+                    if (insertAt > half) {
+                        b++;
+                        insertAt -= half;
+                    }
+                }
+            }
+        }
+        int count = counts[b];
+        int[] block = blocks[b];
+        if (count == block.length) {
+            block = Arrays.copyOf(block, Math.min(BLOCK, count + (count >> 1) + 4));
+            blocks[b] = block;
+        }
+        System.arraycopy(block, insertAt, block, insertAt + 1, count - insertAt);
+        block[insertAt] = value;
+        counts[b]++;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int b = blockFor(value);
+        if (b == blockCount) {
+            return false;
+        }
+        int[] block = blocks[b];
+        int index = Arrays.binarySearch(block, 0, counts[b], value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(block, index + 1, block, index, counts[b] - index - 1);
+        if (--counts[b] == 0) {
+            removeBlock(b);
+        }
+        size--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        int b = blockFor(value);
+        return b < blockCount && Arrays.binarySearch(blocks[b], 0, counts[b], value) >= 0;
+    }
+
+    // индекс первого элемента больше value, size() - если таких нет
+    public int indexAfter(int value) {
+        int index = 0;
+        for (int b = 0; b < blockCount; b++) {
+            int count = counts[b];
+            if (blocks[b][count - 1] > value) {
+                int position = Arrays.binarySearch(blocks[b], 0, count, value);
+                return index + (position >= 0 ? position + 1 : -position - 1);
+            }
+            index += count;
+        }
+        return size;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int b = 0;
+        while (index >= counts[b]) {
+            index -= counts[b++];
+        }
+        return blocks[b][index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        blocks = NO_BLOCKS;
+        counts = NO_COUNTS;
+        blockCount = 0;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int b = 0; b < blockCount; b++) {
+            int[] block = blocks[b];
+            for (int i = 0, count = counts[b]; i < count; i++) {
+                action.accept(block[i]);
+            }
+        }
+    }
+
+    // Обходит элементы больше after по возрастанию, пока action возвращает true; начало ищется за O(log n)
+    public void forEachAfter(int after, IntPredicate action) {
+        if (after == Integer.MAX_VALUE) {
+            return;
+        }
+        int b = blockFor(after + 1);
+        if (b == blockCount) {
+            return;
+        }
+        int position = Arrays.binarySearch(blocks[b], 0, counts[b], after);
+        int i = position >= 0 ? position + 1 : -position - 1;
+        for (; b < blockCount; b++, i = 0) {
+            int[] block = blocks[b];
+            for (int count = counts[b]; i < count; i++) {
+                if (!action.test(block[i])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int offset = 0;
+        for (int b = 0; b < blockCount; b++) {
+            System.arraycopy(blocks[b], 0, result, offset, counts[b]);
+            offset += counts[b];
+        }
+        return result;
+    }
+
+    // независимая копия
+    public IntSortedSet copy() {
+        IntSortedSet copy = new IntSortedSet();
+        copy.blocks = new int[blockCount][];
+        for (int b = 0; b < blockCount; b++) {
+            copy.blocks[b] = Arrays.copyOf(blocks[b], counts[b]);
+        }
+        copy.counts = Arrays.copyOf(counts, blockCount);
+        copy.blockCount = blockCount;
+        copy.size = size;
+        return copy;
+    }
+
+    // представление только для чтения, без копирования
+    public List<Integer> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return IntSortedSet.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && IntSortedSet.this.contains((Integer) o);
+            }
+
+            // обход по блокам, а не через get(i)
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<>() {
+                    private int block;
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return block < blockCount && index < counts[block];
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int value = blocks[block][index++];
+                        if (index == counts[block]) {
+                            block++;
+                            index = 0;
+                        }
+                        return value;
+                    }
+                };
+            }
+        };
+    }
+
+    // первый блок, последний элемент которого не меньше value; blockCount - если такого нет
+    private int blockFor(int value) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (blocks[middle][counts[middle] - 1] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void insertBlock(int at, int[] block, int count) {
+        if (blockCount == blocks.length) {
+            int capacity = blockCount + (blockCount >> 1) + 4;
+            blocks = Arrays.copyOf(blocks, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        System.arraycopy(blocks, at, blocks, at + 1, blockCount - at);
+        System.arraycopy(counts, at, counts, at + 1, blockCount - at);
+        blocks[at] = block;
+        counts[at] = count;
+        blockCount++;
+    }
+
+    private void removeBlock(int at) {
+        System.arraycopy(blocks, at + 1, blocks, at, blockCount - at - 1);
+        System.arraycopy(counts, at + 1, counts, at, blockCount - at - 1);
+        blockCount--;
+        blocks[blockCount] = null;
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+}
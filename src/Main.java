@@ -5,21 +5,26 @@ public class Main {
         System.out.println("Task Manager HTTP Server");
 
         try {
-            TaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+            // обработчики выполняются параллельно, поэтому нужен потокобезопасный менеджер
+            TaskManager manager = Managers.getConcurrentTaskManager();
 
-            Task task = new Task(0, "Первая задача", "Описание первой задачи", "NEW");
+            Task task = new Task(0, "Первая задача", "Описание первой задачи", TaskStatus.NEW);
             Task created = manager.createTask(task);
             System.out.println("Created task with ID: " + created.getId());
 
-            Task task2 = new Task(0, "Вторая задача", "Еще одна тестовая задача", "IN_PROGRESS");
+            Task task2 = new Task(0, "Вторая задача", "Еще одна тестовая задача", TaskStatus.IN_PROGRESS);
             Task created2 = manager.createTask(task2);
             System.out.println("Created task with ID: " + created2.getId());
 
-            HttpTaskServer server = new HttpTaskServer(manager);
+            int port = args.length > 0 ? Integer.parseInt(args[0]) : ServerConfig.DEFAULT_PORT;
+            HttpTaskServer server = new HttpTaskServer(manager, ServerConfig.defaults()
+                    .withPort(port)
+                    .withVirtualThreads()
+                    .withEventStream(256, 1000));
             server.start();
 
-            System.out.println(" Server is running on port 8081.");
-            System.out.println(" Open in browser: http://localhost:8081/tasks");
+            System.out.println(" Server is running on port " + server.getPort() + ".");
+            System.out.println(" Open in browser: http://localhost:" + server.getPort() + "/tasks");
 
             Thread.currentThread().join();
 
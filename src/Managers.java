@@ -5,6 +5,10 @@ public class Managers {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    public static TaskManager getConcurrentTaskManager() {
+        return new ConcurrentTaskManager(getDefaultHistory());
+    }
+
     public static TaskManager getFileBackedTaskManager(File file) {
         return new FileBackedTaskManager(getDefaultHistory(), file);
     }
@@ -0,0 +1,53 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * IntHashMap, который дополнительно хранит ключи по возрастанию.
+ * Нужен для постраничной выборки по id: позиция курсора находится бинарным поиском, страница - O(log n + limit).
+ */
+public class OrderedIntMap<V> extends IntHashMap<V> {
+    private final IntSortedSet keys = new IntSortedSet();
+
+    @Override
+    public V put(int key, V value) {
+        V old = super.put(key, value);
+        if (old == null) {
+            keys.add(key);
+        }
+        return old;
+    }
+
+    @Override
+    public V remove(int key) {
+        V old = super.remove(key);
+        if (old != null) {
+            keys.remove(key);
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        keys.clear();
+    }
+
+    // до limit значений с ключами больше afterKey, по возрастанию ключа
+    public List<V> page(int afterKey, int limit) {
+        List<V> page = new ArrayList<>(Math.min(limit, keys.size()));
+        keys.forEachAfter(afterKey, key -> {
+            if (page.size() >= limit) {
+                return false;
+            }
+            page.add(get(key));
+            return true;
+        });
+        return page;
+    }
+
+    // Обходит значения с ключами больше afterKey по возрастанию ключа, пока visitor возвращает true
+    public void scanAfter(int afterKey, Predicate<? super V> visitor) {
+        keys.forEachAfter(afterKey, key -> visitor.test(get(key)));
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Неизменяемое упорядоченное множество поверх PersistentSortedMap: add и remove возвращают новую версию
+ * за O(log n), прежние версии делят с ней узлы и не меняются.
+ */
+public class PersistentSortedSet<E> {
+    private final PersistentSortedMap<E, E> elements;
+
+    private PersistentSortedSet(PersistentSortedMap<E, E> elements) {
+        this.elements = elements;
+    }
+
+    public static <E> PersistentSortedSet<E> empty(Comparator<? super E> comparator) {
+        return new PersistentSortedSet<>(PersistentSortedMap.empty(comparator));
+    }
+
+    // Сборка за O(n) из элементов, уже упорядоченных по comparator и без повторов
+    public static <E> PersistentSortedSet<E> fromSorted(Comparator<? super E> comparator, List<? extends E> sorted) {
+        return new PersistentSortedSet<>(PersistentSortedMap.fromSorted(comparator, sorted, sorted));
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    public boolean contains(E element) {
+        return elements.containsKey(element);
+    }
+
+    public PersistentSortedSet<E> add(E element) {
+        return new PersistentSortedSet<>(elements.put(element, element));
+    }
+
+    public PersistentSortedSet<E> remove(E element) {
+        PersistentSortedMap<E, E> updated = elements.remove(element);
+        return updated == elements ? this : new PersistentSortedSet<>(updated);
+    }
+
+    // Элементы по порядку - представление только для чтения
+    public List<E> asList() {
+        return elements.values();
+    }
+}
@@ -1,28 +1,72 @@
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
-public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
+public class PrioritizedHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
     private final Gson gson;
 
     public PrioritizedHandler(TaskManager taskManager) {
+        this(taskManager, null);
+    }
+
+    public PrioritizedHandler(TaskManager taskManager, ResponseCache cache) {
+        super(cache);
         this.taskManager = taskManager;
         this.gson = GsonFactory.createGson();
+
+        router.get("/prioritized", (exchange, params) -> handleGet(exchange));
+    }
+
+    private void handleGet(HttpExchange exchange) throws IOException {
+        // версии берутся из общего счетчика, поэтому максимум меняется при изменении любой из коллекций
+        long version = Math.max(taskManager.getTasksVersion(), taskManager.getSubtasksVersion());
+        if (notModified(exchange, version)) {
+            return;
+        }
+        Map<String, String> params = queryParams(exchange);
+        if (params.containsKey("from") || params.containsKey("to")) {
+            sendRange(exchange, params);
+        } else if (params.containsKey("limit") || params.containsKey("after")) {
+            sendPrioritizedPage(exchange, params);
+        } else {
+            sendCachedList(exchange, gson, ResponseCache.PRIORITIZED, version, taskManager::getPrioritizedTasks);
+        }
+    }
+
+    // ?from=&to= - задачи, начавшиеся в [from, to) и закончившиеся до to; ?straddling - и пересекающие границы
+    private void sendRange(HttpExchange exchange, Map<String, String> params) throws IOException {
+        if (params.containsKey("limit") || params.containsKey("after")) {
+            throw new IllegalArgumentException("Parameters from/to cannot be combined with limit/after");
+        }
+        LocalDateTime from = dateTimeParam("from", params.get("from"));
+        LocalDateTime to = dateTimeParam("to", params.get("to"));
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Parameter from must be before to");
+        }
+        sendJsonList(exchange, gson, taskManager.getPrioritizedInRange(from, to, params.containsKey("straddling")));
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            if ("GET".equals(exchange.getRequestMethod())) {
-                String response = gson.toJson(taskManager.getPrioritizedTasks());
-                sendSuccess(exchange, response);
-            } else {
-                sendBadRequest(exchange, "Method not allowed");
+    // Курсор приоритетного списка - ключ сортировки последней задачи: "startTime_id"
+    private void sendPrioritizedPage(HttpExchange exchange, Map<String, String> params) throws IOException {
+        LocalDateTime afterStart = null;
+        int afterId = 0;
+        String after = params.get("after");
+        if (after != null) {
+            int separator = after.lastIndexOf('_');
+            try {
+                afterStart = LocalDateTime.parse(after.substring(0, Math.max(separator, 0)));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + after);
             }
-        } catch (Exception e) {
-            sendInternalError(exchange, e.getMessage());
+            afterId = intParam("after", after.substring(separator + 1));
         }
+        LocalDateTime start = afterStart;
+        int id = afterId;
+        sendPage(exchange, gson, limitParam(params), limit -> taskManager.getPrioritizedPage(start, id, limit),
+                task -> task.getStartTime() + "_" + task.getId());
     }
-}
\ No newline at end of file
+}
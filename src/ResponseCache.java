@@ -0,0 +1,155 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш готовых JSON-ответов, ограниченный суммарным размером в байтах, с вытеснением LRU.
+ * Ключ - ресурс ("tasks/5", "prioritized"), вместе с телом хранится версия, из которой оно построено:
+ * запись отдается, только если версия совпадает с текущей, поэтому гонка с изменением не дает устаревших ответов.
+ * Как слушатель менеджера кэш сразу выбрасывает записи, затронутые изменением, не дожидаясь вытеснения.
+ */
+public class ResponseCache implements Consumer<TaskChange> {
+    public static final String PRIORITIZED = "prioritized";
+
+    private final long maxBytes;
+    private final boolean precompress;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    public ResponseCache(long maxBytes, boolean precompress) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным");
+        }
+        this.maxBytes = maxBytes;
+        this.precompress = precompress;
+    }
+
+    public static String key(TaskType type, int id) {
+        return type.name().toLowerCase() + "s/" + id;
+    }
+
+    // Запись для версии version или null; промах засчитывается и при устаревшей версии,
+    // и для ответа, отмеченного как слишком большой
+    public synchronized Entry get(String key, long version) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version && entry.body != null) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        return entry != null && entry.version == version ? entry : null;
+    }
+
+    // Ответы больше четверти кэша не сохраняются - они вытеснили бы все остальное
+    public boolean fits(int size) {
+        return size <= maxBytes / 4;
+    }
+
+    public Entry put(String key, long version, byte[] body) {
+        byte[] gzip = precompress && body.length >= BaseHttpHandler.MIN_COMPRESS_BYTES ? gzip(body) : null;
+        Entry entry = new Entry(version, body, gzip);
+        store(key, entry);
+        return entry;
+    }
+
+    // Отмечает, что ответ для версии слишком велик: он отдается потоком, без повторных попыток сохранить
+    public void putOversized(String key, long version) {
+        store(key, new Entry(version, null, null));
+    }
+
+    public synchronized void invalidate(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size();
+        }
+    }
+
+    @Override
+    public synchronized void accept(TaskChange change) {
+        if (change.getType() != TaskType.EPIC) {
+            invalidate(PRIORITIZED);
+        }
+        if (change.getKind() != TaskChange.Kind.CLEARED) {
+            invalidate(key(change.getType(), change.getId()));
+            return;
+        }
+        String prefix = change.getType().name().toLowerCase() + "s/";
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                bytes -= entry.getValue().size();
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void store(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        bytes += entry.size() - (previous == null ? 0 : previous.size());
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static class Entry {
+        private final long version;
+        private final byte[] body;
+        private final byte[] gzip;
+
+        private Entry(long version, byte[] body, byte[] gzip) {
+            this.version = version;
+            this.body = body;
+            this.gzip = gzip;
+        }
+
+        // null - ответ слишком велик для кэша
+        public byte[] getBody() {
+            return body;
+        }
+
+        // null - сжатая копия не хранится
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        private long size() {
+            return (body == null ? 0 : body.length) + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
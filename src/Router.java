@@ -0,0 +1,181 @@
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Маршрутизатор запросов: дерево сегментов пути, которое строится один раз при создании обработчика.
+ * Сегмент {name} - целочисленный параметр, он разбирается прямо из строки пути, без regex и substring.
+ * Если путь найден, но метод для него не зарегистрирован, результат содержит список допустимых методов для 405.
+ */
+public class Router {
+    @FunctionalInterface
+    public interface Route {
+        void handle(HttpExchange exchange, int[] params) throws IOException;
+    }
+
+    private static final int[] NO_PARAMS = new int[0];
+    private static final Match NOT_FOUND = new Match(null, NO_PARAMS, null);
+
+    private final Node root = new Node();
+    private int maxParams;
+
+    public Router get(String pattern, Route route) {
+        return add("GET", pattern, route);
+    }
+
+    public Router post(String pattern, Route route) {
+        return add("POST", pattern, route);
+    }
+
+    public Router delete(String pattern, Route route) {
+        return add("DELETE", pattern, route);
+    }
+
+    public Router add(String method, String pattern, Route route) {
+        Node node = root;
+        int paramCount = 0;
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (node.param == null) {
+                    node.param = new Node();
+                }
+                node = node.param;
+                paramCount++;
+            } else {
+                node = node.literal(segment);
+            }
+        }
+        if (node.routes.put(method, route) != null) {
+            throw new IllegalStateException("Маршрут " + method + " " + pattern + " уже зарегистрирован");
+        }
+        maxParams = Math.max(maxParams, paramCount);
+        return this;
+    }
+
+    public Match match(String method, String path) {
+        int[] params = maxParams == 0 ? NO_PARAMS : new int[maxParams];
+        Node node = find(root, path, 0, params, 0);
+        if (node == null) {
+            return NOT_FOUND;
+        }
+        Route route = node.routes.get(method);
+        return route != null ? new Match(route, params, null) : new Match(null, params, node.allow());
+    }
+
+    // Спускается по сегментам; литерал важнее параметра, при неудаче - откат к параметру.
+    // Пустой сегмент (двойной или завершающий слэш) ничему не соответствует, как и прежние точные regex
+    private static Node find(Node node, String path, int from, int[] params, int paramIndex) {
+        if (from == path.length()) {
+            return node.routes.isEmpty() ? null : node;
+        }
+        if (path.charAt(from) != '/') {
+            return null;
+        }
+        int start = from + 1;
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        if (end == start) {
+            return null;
+        }
+
+        for (Node child : node.literals) {
+            if (child.segment.length() == end - start && path.regionMatches(start, child.segment, 0, end - start)) {
+                Node found = find(child, path, end, params, paramIndex);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        if (node.param != null) {
+            long value = parseInt(path, start, end);
+            if (value >= 0) {
+                Node found = find(node.param, path, end, params, paramIndex + 1);
+                if (found != null) {
+                    params[paramIndex] = (int) value;
+                }
+                return found;
+            }
+        }
+        return null;
+    }
+
+    // -1, если сегмент не является неотрицательным int
+    private static long parseInt(String path, int start, int end) {
+        if (end - start > 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? value : -1;
+    }
+
+    public static class Match {
+        private final Route route;
+        private final int[] params;
+        private final String allow;
+
+        private Match(Route route, int[] params, String allow) {
+            this.route = route;
+            this.params = params;
+            this.allow = allow;
+        }
+
+        // null - маршрут не найден или метод не поддерживается
+        public Route getRoute() {
+            return route;
+        }
+
+        public int[] getParams() {
+            return params;
+        }
+
+        // значение заголовка Allow, если путь найден, а метод нет
+        public String getAllow() {
+            return allow;
+        }
+    }
+
+    private static class Node {
+        private final String segment;
+        private final List<Node> literals = new ArrayList<>(2);
+        private final Map<String, Route> routes = new LinkedHashMap<>(4);
+        private Node param;
+
+        Node() {
+            this(null);
+        }
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        Node literal(String segment) {
+            for (Node child : literals) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+            Node child = new Node(segment);
+            literals.add(child);
+            return child;
+        }
+
+        String allow() {
+            return String.join(", ", routes.keySet());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.Map;
+
+// GET /search?q=...&limit= - полнотекстовый поиск по задачам, эпикам и подзадачам
+public class SearchHandler extends BaseHttpHandler {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final TaskManager taskManager;
+    private final Gson gson;
+
+    public SearchHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        this.gson = GsonFactory.createGson();
+
+        router.get("/search", (exchange, params) -> handleSearch(exchange));
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        Map<String, String> params = queryParams(exchange);
+        String query = params.get("q");
+        if (query == null || query.isBlank()) {
+            sendBadRequest(exchange, "Parameter q is required");
+            return;
+        }
+        int limit = params.containsKey("limit") ? limitParam(params) : DEFAULT_LIMIT;
+        // результат зависит от всех трех коллекций, поэтому ETag - по общей версии
+        if (notModified(exchange, taskManager.getVersion())) {
+            return;
+        }
+        sendJsonList(exchange, gson, taskManager.search(query, limit));
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Настройки HttpTaskServer: порт, длина очереди входящих соединений и исполнитель обработчиков.
+ * По умолчанию запросы обрабатываются в потоке-диспетчере HttpServer, как раньше.
+ * Многопоточные исполнители включаются только вместе с потокобезопасным менеджером (ConcurrentTaskManager).
+ */
+public class ServerConfig {
+    public static final int DEFAULT_PORT = 8081; // на 8080 порту не работает
+
+    private final int port;
+    private final int backlog;
+    // null - обработка в потоке-диспетчере
+    private final Supplier<ExecutorService> executorFactory;
+    // 0 - кэш ответов выключен
+    private final long responseCacheBytes;
+    private final boolean precompressResponses;
+    // в журнал доступа попадает каждый N-й успешный запрос
+    private final int accessLogSampleEvery;
+    // 0 - поток событий /events выключен
+    private final int eventBufferSize;
+    private final int maxEventSubscribers;
+
+    private ServerConfig(int port, int backlog, Supplier<ExecutorService> executorFactory,
+                         long responseCacheBytes, boolean precompressResponses, int accessLogSampleEvery,
+                         int eventBufferSize, int maxEventSubscribers) {
+        this.port = port;
+        this.backlog = backlog;
+        this.executorFactory = executorFactory;
+        this.responseCacheBytes = responseCacheBytes;
+        this.precompressResponses = precompressResponses;
+        this.accessLogSampleEvery = accessLogSampleEvery;
+        this.eventBufferSize = eventBufferSize;
+        this.maxEventSubscribers = maxEventSubscribers;
+    }
+
+    public static ServerConfig defaults() {
+        return new ServerConfig(DEFAULT_PORT, 0, null, 0, false, 1, 0, 0);
+    }
+
+    // 0 - любой свободный порт
+    public ServerConfig withPort(int port) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Некорректный порт: " + port);
+        }
+        return new ServerConfig(port, backlog, executorFactory, responseCacheBytes, precompressResponses,
+                accessLogSampleEvery, eventBufferSize, maxEventSubscribers);
+    }
+
+    // 0 - значение системы по умолчанию
+    public ServerConfig withBacklog(int backlog) {
+        if (backlog < 0) {
+            throw new IllegalArgumentException("Длина очереди не может быть отрицательной");
+        }
+        return new ServerConfig(port, backlog, executorFactory, responseCacheBytes, precompressResponses,
+                accessLogSampleEvery, eventBufferSize, maxEventSubscribers);
+    }
+
+    public ServerConfig withDispatcherThread() {
+        return new ServerConfig(port, backlog, null, responseCacheBytes, precompressResponses, accessLogSampleEvery,
+                eventBufferSize, maxEventSubscribers);
+    }
+
+    // Виртуальный поток на запрос; на JDK без виртуальных потоков - обычный поток на запрос
+    public ServerConfig withVirtualThreads() {
+        return new ServerConfig(port, backlog, ServerConfig::newThreadPerTaskExecutor, responseCacheBytes,
+                precompressResponses, accessLogSampleEvery, eventBufferSize, maxEventSubscribers);
+    }
+
+    // Фиксированный пул; когда очередь заполнена, запрос выполняет диспетчер, притормаживая прием соединений
+    public ServerConfig withBoundedPool(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Размер пула и очереди должен быть положительным");
+        }
+        return new ServerConfig(port, backlog, () -> new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), workerThreads(), new ThreadPoolExecutor.CallerRunsPolicy()),
+                responseCacheBytes, precompressResponses, accessLogSampleEvery, eventBufferSize, maxEventSubscribers);
+    }
+
+    // Кэш готовых ответов для GET сущностей и /prioritized; precompress - хранить и сжатую gzip копию
+    public ServerConfig withResponseCache(long maxBytes, boolean precompress) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным");
+        }
+        return new ServerConfig(port, backlog, executorFactory, maxBytes, precompress, accessLogSampleEvery,
+                eventBufferSize, maxEventSubscribers);
+    }
+
+    // Выборочный журнал доступа для высокой нагрузки: ошибки пишутся всегда, успешные - каждый N-й
+    public ServerConfig withAccessLogSampling(int everyN) {
+        if (everyN < 1) {
+            throw new IllegalArgumentException("Частота выборки должна быть положительной");
+        }
+        return new ServerConfig(port, backlog, executorFactory, responseCacheBytes, precompressResponses,
+                everyN, eventBufferSize, maxEventSubscribers);
+    }
+
+    // Поток изменений /events (Server-Sent Events). Подключение ждет событий в своем потоке, а не в пуле
+    // обработчиков; bufferSize - сколько событий ждут медленного подписчика до resync
+    public ServerConfig withEventStream(int bufferSize, int maxSubscribers) {
+        if (bufferSize < 1 || maxSubscribers < 1) {
+            throw new IllegalArgumentException("Размер буфера и число подписчиков должны быть положительными");
+        }
+        return new ServerConfig(port, backlog, executorFactory, responseCacheBytes, precompressResponses,
+                accessLogSampleEvery, bufferSize, maxSubscribers);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public int getAccessLogSampleEvery() {
+        return accessLogSampleEvery;
+    }
+
+    // null - кэш выключен
+    public ResponseCache createResponseCache() {
+        return responseCacheBytes == 0 ? null : new ResponseCache(responseCacheBytes, precompressResponses);
+    }
+
+    // null - поток событий выключен
+    public ChangeFeed createChangeFeed() {
+        return eventBufferSize == 0 ? null : new ChangeFeed(eventBufferSize, maxEventSubscribers);
+    }
+
+    // Новый исполнитель для каждого запуска сервера; null - обработка в потоке-диспетчере
+    public ExecutorService createExecutor() {
+        return executorFactory == null ? null : executorFactory.get();
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            // проект собирается под Java 17, поэтому метод Java 21 вызывается через рефлексию
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(workerThreads());
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "http-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
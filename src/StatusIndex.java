@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Вторичный индекс коллекции менеджера: статус -> упорядоченное множество id.
+ * Индекс помнит текущий статус каждой сущности, поэтому смена статуса перекладывает id между множествами,
+ * не обращаясь к прежней версии объекта. Выборка по статусу стоит O(log n + размер результата).
+ */
+public class StatusIndex<V extends Task> {
+    private final IntHashMap<V> items;
+    private final IntHashMap<TaskStatus> statuses = new IntHashMap<>();
+    private final Map<TaskStatus, IntSortedSet> ids = new EnumMap<>(TaskStatus.class);
+
+    public StatusIndex(IntHashMap<V> items) {
+        this.items = items;
+        for (TaskStatus status : TaskStatus.values()) {
+            ids.put(status, new IntSortedSet());
+        }
+    }
+
+    // Запоминает статус сущности; сущности без статуса в индекс не попадают
+    public void update(V item) {
+        TaskStatus status = item.getStatus();
+        TaskStatus previous = status == null ? statuses.remove(item.getId()) : statuses.put(item.getId(), status);
+        if (previous == status) {
+            return;
+        }
+        if (previous != null) {
+            ids.get(previous).remove(item.getId());
+        }
+        if (status != null) {
+            ids.get(status).add(item.getId());
+        }
+    }
+
+    public void remove(int id) {
+        TaskStatus previous = statuses.remove(id);
+        if (previous != null) {
+            ids.get(previous).remove(id);
+        }
+    }
+
+    public void clear() {
+        statuses.clear();
+        ids.values().forEach(IntSortedSet::clear);
+    }
+
+    // Заполняет индекс заново по текущему содержимому коллекции
+    public void rebuild() {
+        clear();
+        items.values().forEach(this::update);
+    }
+
+    public int count(TaskStatus status) {
+        return ids.get(status).size();
+    }
+
+    // до limit сущностей со статусом status и id больше afterId, по возрастанию id
+    public List<V> page(TaskStatus status, int afterId, int limit) {
+        IntSortedSet matching = ids.get(status);
+        List<V> page = new ArrayList<>(Math.min(limit, matching.size()));
+        matching.forEachAfter(afterId, id -> {
+            if (page.size() >= limit) {
+                return false;
+            }
+            page.add(items.get(id));
+            return true;
+        });
+        return page;
+    }
+
+    // Обходит сущности со статусом status и id больше afterId по возрастанию id, пока visitor возвращает true
+    public void scanAfter(TaskStatus status, int afterId, Predicate<? super V> visitor) {
+        ids.get(status).forEachAfter(afterId, id -> visitor.test(items.get(id)));
+    }
+}
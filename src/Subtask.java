@@ -4,12 +4,12 @@ import java.time.LocalDateTime;
 public class Subtask extends Task {
     private int epicId;
 
-    public Subtask(int id, String title, String description, String status, int epicId) {
+    public Subtask(int id, String title, String description, TaskStatus status, int epicId) {
         super(id, title, description, status);
         this.epicId = epicId;
     }
 
-    public Subtask(int id, String title, String dedescription, String status, int epicId,
+    public Subtask(int id, String title, String dedescription, TaskStatus status, int epicId,
                    Duration duration, LocalDateTime startTime) {
         super(id, title, dedescription, status, duration, startTime);
         this.epicId = epicId;
@@ -23,6 +23,13 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    @Override
+    public Subtask copy() {
+        Subtask copy = new Subtask(id, title, description, status, epicId, duration, startTime);
+        copy.version = version;
+        return copy;
+    }
+
     public String toString() {
         return "Subtask{" +
                 "id=" + id +
@@ -1,46 +1,54 @@
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
+import java.util.Map;
 
-public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
+public class SubtasksHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
     private final Gson gson;
 
     public SubtasksHandler(TaskManager taskManager) {
+        this(taskManager, null);
+    }
+
+    public SubtasksHandler(TaskManager taskManager, ResponseCache cache) {
+        super(cache);
         this.taskManager = taskManager;
         this.gson = GsonFactory.createGson();
+
+        router.get("/subtasks", (exchange, params) -> handleGetAll(exchange))
+                .get("/subtasks/{id}", (exchange, params) -> handleGet(exchange, params[0]));
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
+    private void handleGetAll(HttpExchange exchange) throws IOException {
+        if (notModified(exchange, taskManager.getSubtasksVersion())) {
+            return;
+        }
+        Map<String, String> params = queryParams(exchange);
+        TaskQuery query = taskQueryParam(TaskType.SUBTASK, params);
+        if (query != null) {
+            // выборка с условиями через индексы менеджера, с теми же limit/after, что и весь список
+            sendQuery(exchange, gson, taskManager, query, limitParam(params));
+            return;
+        }
+        if (params.containsKey("limit") || params.containsKey("after")) {
+            int after = params.containsKey("after") ? intParam("after", params.get("after")) : 0;
+            sendPage(exchange, gson, limitParam(params), limit -> taskManager.getSubtasksPage(after, limit),
+                    item -> String.valueOf(item.getId()));
+        } else {
+            sendJsonList(exchange, gson, taskManager.getSubtasks());
+        }
+    }
 
-        try {
-            switch (method) {
-                case "GET":
-                    if (path.equals("/subtasks")) {
-                        String response = gson.toJson(taskManager.getSubtasks());
-                        sendSuccess(exchange, response);
-                    } else if (path.matches("/subtasks/\\d+")) {
-                        String[] parts = path.split("/");
-                        int id = Integer.parseInt(parts[2]);
-                        Subtask subtask = taskManager.getSubtask(id);
-                        if (subtask != null) {
-                            sendSuccess(exchange, gson.toJson(subtask));
-                        } else {
-                            sendNotFound(exchange);
-                        }
-                    } else {
-                        sendNotFound(exchange);
-                    }
-                    break;
-                default:
-                    sendBadRequest(exchange, "Method not allowed");
-            }
-        } catch (Exception e) {
-            sendInternalError(exchange, e.getMessage());
+    private void handleGet(HttpExchange exchange, int id) throws IOException {
+        Subtask subtask = taskManager.getSubtask(id);
+        if (subtask == null) {
+            sendNotFound(exchange);
+            return;
+        }
+        if (notModified(exchange, subtask.getVersion())) {
+            return;
         }
+        sendCachedJson(exchange, gson, ResponseCache.key(TaskType.SUBTASK, id), subtask);
     }
-}
\ No newline at end of file
+}
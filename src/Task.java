@@ -6,18 +6,20 @@ public class Task {
     protected int id;
     protected String title;
     protected String description;
-    protected String status; // "NEW", "IN_PROGRESS", "DONE"
+    protected TaskStatus status;
     protected Duration duration;
     protected LocalDateTime startTime;
+    // версия менеджера на момент последнего изменения; в JSON и файл не попадает
+    protected transient long version;
 
-    public Task(int id, String title, String description, String status) {
+    public Task(int id, String title, String description, TaskStatus status) {
         this.id = id;
         this.title = title;
         this.description = description;
         this.status = status;
     }
 
-    public Task(int id, String title, String description, String status,
+    public Task(int id, String title, String description, TaskStatus status,
                 Duration duration, LocalDateTime startTime) {
         this.id = id;
         this.title = title;
@@ -34,6 +36,14 @@ public class Task {
         return startTime.plus(duration);
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public int getId() {
         return id;
     }
@@ -58,11 +68,11 @@ public class Task {
         this.description = description;
     }
 
-    public String getStatus() {
+    public TaskStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(TaskStatus status) {
         this.status = status;
     }
 
@@ -82,6 +92,13 @@ public class Task {
         this.startTime = startTime;
     }
 
+    // Копия полей на текущий момент - версия задачи для среза менеджера
+    public Task copy() {
+        Task copy = new Task(id, title, description, status, duration, startTime);
+        copy.version = version;
+        return copy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
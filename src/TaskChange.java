@@ -0,0 +1,58 @@
+/**
+ * Событие изменения в менеджере.
+ * Слушатели вызываются синхронно внутри изменяющей операции, поэтому должны работать быстро.
+ */
+public class TaskChange {
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED,
+        // удалена вся коллекция type, id не используется
+        CLEARED
+    }
+
+    private final Kind kind;
+    private final TaskType type;
+    private final int id;
+    private final long version;
+    // измененная сущность; null для CLEARED
+    private final Task item;
+
+    public TaskChange(Kind kind, TaskType type, int id, long version) {
+        this(kind, type, id, version, null);
+    }
+
+    public TaskChange(Kind kind, TaskType type, int id, long version, Task item) {
+        this.kind = kind;
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.item = item;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Живой объект менеджера: читать его безопасно только внутри слушателя
+    public Task getItem() {
+        return item;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + type + (kind == Kind.CLEARED ? "" : " " + id) + " v" + version;
+    }
+}
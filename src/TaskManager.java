@@ -1,9 +1,33 @@
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public interface TaskManager {
     List<Task> getTasks();
     List<Epic> getEpics();
     List<Subtask> getSubtasks();
+    // согласованный неизменяемый срез всех коллекций за O(1)
+    BoardSnapshot snapshot();
+    List<Task> getTasksPage(int afterId, int limit);
+    List<Epic> getEpicsPage(int afterId, int limit);
+    List<Subtask> getSubtasksPage(int afterId, int limit);
+    List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit);
+    List<Task> getPrioritizedInRange(LocalDateTime from, LocalDateTime to, boolean includeStraddling);
+    List<Task> search(String query, int limit);
+    List<Task> query(TaskQuery query);
+    List<Task> getTasksByStatus(TaskStatus status, int afterId, int limit);
+    List<Epic> getEpicsByStatus(TaskStatus status, int afterId, int limit);
+    List<Subtask> getSubtasksByStatus(TaskStatus status, int afterId, int limit);
+    // версии изменений: общая и по коллекциям растут монотонно, версия сущности - Task.getVersion()
+    long getVersion();
+    // слушатели изменений вызываются синхронно внутри изменяющей операции
+    void addChangeListener(Consumer<TaskChange> listener);
+    void removeChangeListener(Consumer<TaskChange> listener);
+    long getTasksVersion();
+    long getEpicsVersion();
+    long getSubtasksVersion();
     void deleteTasks();
     void deleteEpics();
     void deleteSubtasks();
@@ -19,9 +43,15 @@ public interface TaskManager {
     void deleteTask(int id);
     void deleteEpic(int id);
     void deleteSubtask(int id);
+    List<Task> createAll(List<? extends Task> items);
+    void updateAll(List<? extends Task> items);
+    void deleteAll(Collection<Integer> ids);
+    // выполняет несколько операций как одну: под одной блокировкой и с одним сбросом на диск
+    <T> T inTransaction(Supplier<T> work);
     List<Subtask> getEpicSubtasks(int epicId);
     List<Task> getHistory();
     List<Task> getPrioritizedTasks();
     boolean isTasksIntersect(Task task1, Task task2);
     boolean hasTimeOverlap(Task task);
+    void flush();
 }
\ No newline at end of file
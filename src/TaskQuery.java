@@ -0,0 +1,169 @@
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Декларативная выборка одной коллекции менеджера: тип, статус, эпик, окно по времени начала, текст,
+ * порядок и постраничность. В отличие от findTasksByPredicate условия видны менеджеру, поэтому он выбирает
+ * самый узкий индекс (Access), а остальные условия проверяет только у найденных через него кандидатов.
+ * Запрос неизменяем: каждый with* возвращает новый объект.
+ */
+public class TaskQuery {
+    // путь доступа к кандидатам, выбранный планировщиком
+    public enum Access {
+        ID_SCAN,
+        STATUS_INDEX,
+        EPIC_MEMBERS,
+        TIME_INDEX,
+        TEXT_INDEX
+    }
+
+    public enum Order {
+        // по возрастанию id, курсор - id последней сущности
+        ID,
+        // по времени начала, как в приоритетном списке; сущности без времени - в конце
+        START
+    }
+
+    private final TaskType type;
+    // null - условие не задано
+    private final TaskStatus status;
+    private final Integer epicId;
+    // начало в [from, to); сущности без времени начала под окно не попадают
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final String text;
+    private final Order order;
+    private final int afterId;
+    private final int limit;
+
+    private TaskQuery(TaskType type, TaskStatus status, Integer epicId, LocalDateTime from, LocalDateTime to,
+                      String text, Order order, int afterId, int limit) {
+        this.type = type;
+        this.status = status;
+        this.epicId = epicId;
+        this.from = from;
+        this.to = to;
+        this.text = text;
+        this.order = order;
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    public static TaskQuery of(TaskType type) {
+        return new TaskQuery(Objects.requireNonNull(type), null, null, null, null, null, Order.ID, 0,
+                Integer.MAX_VALUE);
+    }
+
+    public TaskQuery withStatus(TaskStatus status) {
+        return new TaskQuery(type, status, epicId, from, to, text, order, afterId, limit);
+    }
+
+    public TaskQuery withEpic(int epicId) {
+        if (type != TaskType.SUBTASK) {
+            throw new IllegalArgumentException("Отбор по эпику возможен только для подзадач");
+        }
+        return new TaskQuery(type, status, epicId, from, to, text, order, afterId, limit);
+    }
+
+    // null - граница не задана
+    public TaskQuery withStartBetween(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало окна должно быть раньше конца");
+        }
+        return new TaskQuery(type, status, epicId, from, to, text, order, afterId, limit);
+    }
+
+    // все слова текста должны встретиться в названии или описании (как в поиске); пустой текст - без условия
+    public TaskQuery withText(String text) {
+        String words = TextIndex.tokenize(text).isEmpty() ? null : text;
+        return new TaskQuery(type, status, epicId, from, to, words, order, afterId, limit);
+    }
+
+    public TaskQuery withOrder(Order order) {
+        if (order != Order.ID && afterId != 0) {
+            throw new IllegalArgumentException("Курсор after поддерживается только при порядке по id");
+        }
+        return new TaskQuery(type, status, epicId, from, to, text, Objects.requireNonNull(order), afterId, limit);
+    }
+
+    public TaskQuery withAfter(int afterId) {
+        if (order != Order.ID && afterId != 0) {
+            throw new IllegalArgumentException("Курсор after поддерживается только при порядке по id");
+        }
+        return new TaskQuery(type, status, epicId, from, to, text, order, afterId, limit);
+    }
+
+    public TaskQuery withLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер выборки должен быть положительным");
+        }
+        return new TaskQuery(type, status, epicId, from, to, text, order, afterId, limit);
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public boolean hasTimeWindow() {
+        return from != null || to != null;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // Проверка всех условий, кроме курсора; планировщик вызывает ее для кандидатов из индекса
+    boolean matchesFields(Task item) {
+        if (TaskType.of(item) != type) {
+            return false;
+        }
+        if (status != null && item.getStatus() != status) {
+            return false;
+        }
+        if (epicId != null && ((Subtask) item).getEpicId() != epicId) {
+            return false;
+        }
+        if (hasTimeWindow()) {
+            LocalDateTime start = item.getStartTime();
+            if (start == null || (from != null && start.isBefore(from)) || (to != null && !start.isBefore(to))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskQuery{type=" + type + ", status=" + status + ", epicId=" + epicId + ", from=" + from
+                + ", to=" + to + ", text='" + text + "', order=" + order + ", afterId=" + afterId
+                + ", limit=" + limit + '}';
+    }
+}
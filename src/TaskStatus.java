@@ -0,0 +1,17 @@
+public enum TaskStatus {
+    NEW,
+    IN_PROGRESS,
+    DONE;
+
+    // Разбор статуса из файла или запроса; пустое значение и "null" старых файлов - статус не задан
+    public static TaskStatus parse(String value) {
+        if (value == null || value.isEmpty() || "null".equals(value)) {
+            return null;
+        }
+        try {
+            return valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный статус: " + value);
+        }
+    }
+}
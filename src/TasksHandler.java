@@ -1,127 +1,94 @@
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
+import java.util.Map;
 
-public class TasksHandler extends BaseHttpHandler implements HttpHandler {
+public class TasksHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
     private final Gson gson;
 
     public TasksHandler(TaskManager taskManager) {
-        this.taskManager = taskManager;
-        this.gson = GsonFactory.createGson();
+        this(taskManager, null);
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
-        System.out.println("Handling " + method + " " + path);
+    public TasksHandler(TaskManager taskManager, ResponseCache cache) {
+        super(cache);
+        this.taskManager = taskManager;
+        this.gson = GsonFactory.createGson();
 
-        try {
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange);
-                    break;
-                case "DELETE":
-                    handleDelete(exchange, path);
-                    break;
-                default:
-                    sendBadRequest(exchange, "Method " + method + " not allowed");
-            }
-        } catch (Exception e) {
-            System.err.println("Error in TasksHandler: " + e.getMessage());
-            e.printStackTrace();
-            sendInternalError(exchange, e.getMessage());
-        }
+        router.get("/tasks", (exchange, params) -> handleGetAll(exchange))
+                .get("/tasks/{id}", (exchange, params) -> handleGet(exchange, params[0]))
+                .post("/tasks", (exchange, params) -> handlePost(exchange))
+                .delete("/tasks", (exchange, params) -> handleDeleteAll(exchange))
+                .delete("/tasks/{id}", (exchange, params) -> handleDelete(exchange, params[0]));
     }
 
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/tasks")) {
+    private void handleGetAll(HttpExchange exchange) throws IOException {
+        if (notModified(exchange, taskManager.getTasksVersion())) {
+            return;
+        }
 
-            var tasks = taskManager.getTasks();
-            System.out.println("Found " + tasks.size() + " tasks");
-            String response = gson.toJson(tasks);
-            System.out.println("Sending response: " + response);
-            sendSuccess(exchange, response);
+        Map<String, String> params = queryParams(exchange);
+        TaskQuery query = taskQueryParam(TaskType.TASK, params);
+        if (query != null) {
+            // выборка с условиями через индексы менеджера, с теми же limit/after, что и весь список
+            sendQuery(exchange, gson, taskManager, query, limitParam(params));
+            return;
+        }
+        if (params.containsKey("limit") || params.containsKey("after")) {
+            int after = params.containsKey("after") ? intParam("after", params.get("after")) : 0;
+            sendPage(exchange, gson, limitParam(params), limit -> taskManager.getTasksPage(after, limit),
+                    task -> String.valueOf(task.getId()));
+            return;
+        }
 
-        } else if (path.matches("/tasks/\\d+")) {
-            // Получить задачу по ID
-            String[] pathParts = path.split("/");
-            int id = Integer.parseInt(pathParts[2]);
+        sendJsonList(exchange, gson, taskManager.getTasks());
+    }
 
-            Task task = taskManager.getTask(id);
-            if (task != null) {
-                String response = gson.toJson(task);
-                sendSuccess(exchange, response);
-            } else {
-                sendNotFound(exchange);
-            }
-        } else {
+    private void handleGet(HttpExchange exchange, int id) throws IOException {
+        Task task = taskManager.getTask(id);
+        if (task == null) {
             sendNotFound(exchange);
+            return;
+        }
+        if (notModified(exchange, task.getVersion())) {
+            return;
         }
+        sendCachedJson(exchange, gson, ResponseCache.key(TaskType.TASK, id), task);
     }
 
     private void handlePost(HttpExchange exchange) throws IOException {
-        try {
-            String body = readText(exchange);
-            System.out.println("POST body: " + body);
-
-            if (body == null || body.trim().isEmpty()) {
-                sendBadRequest(exchange, "Empty request body");
-                return;
-            }
-
-            Task task = gson.fromJson(body, Task.class);
+        String body = readText(exchange);
+        if (body == null || body.trim().isEmpty()) {
+            sendBadRequest(exchange, "Empty request body");
+            return;
+        }
 
-            if (task.getId() == 0) {
-                // новая задача
-                Task createdTask = taskManager.createTask(task);
-                String response = gson.toJson(createdTask);
-                sendCreated(exchange, response);
-            } else {
-                // Обновление существующей задачи
-                taskManager.updateTask(task);
-                String response = gson.toJson(task);
-                sendCreated(exchange, response);
-            }
+        Task task = gson.fromJson(body, Task.class);
 
-        } catch (JsonSyntaxException e) {
-            sendBadRequest(exchange, "Invalid JSON format");
-        } catch (IllegalArgumentException e) {
-            if (e.getMessage() != null && e.getMessage().contains("пересекается")) {
-                sendHasInteractions(exchange);
-            } else {
-                sendBadRequest(exchange, e.getMessage());
-            }
+        if (task.getId() == 0) {
+            // новая задача
+            Task createdTask = taskManager.createTask(task);
+            sendCreated(exchange, gsonFor(exchange, gson).toJson(createdTask));
+        } else {
+            // Обновление существующей задачи
+            taskManager.updateTask(task);
+            sendCreated(exchange, gsonFor(exchange, gson).toJson(task));
         }
     }
 
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/tasks")) {
-            // Удалить все задачи
-            taskManager.deleteTasks();
-            sendSuccess(exchange, "{\"message\": \"All tasks deleted\"}");
-
-        } else if (path.matches("/tasks/\\d+")) {
-            // удаление
-            String[] pathParts = path.split("/");
-            int id = Integer.parseInt(pathParts[2]);
+    private void handleDeleteAll(HttpExchange exchange) throws IOException {
+        taskManager.deleteTasks();
+        sendSuccess(exchange, "{\"message\": \"All tasks deleted\"}");
+    }
 
-            Task task = taskManager.getTask(id);
-            if (task != null) {
-                taskManager.deleteTask(id);
-                sendSuccess(exchange, "{\"message\": \"Task " + id + " deleted\"}");
-            } else {
-                sendNotFound(exchange);
-            }
+    private void handleDelete(HttpExchange exchange, int id) throws IOException {
+        Task task = taskManager.getTask(id);
+        if (task != null) {
+            taskManager.deleteTask(id);
+            sendSuccess(exchange, "{\"message\": \"Task " + id + " deleted\"}");
         } else {
             sendNotFound(exchange);
         }
     }
-}
\ No newline at end of file
+}
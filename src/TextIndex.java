@@ -0,0 +1,252 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс по названиям и описаниям: терм -> (id -> вес терма в сущности).
+ * Текст делится на слова из букв и цифр и приводится к нижнему регистру. Каждое слово запроса ищется
+ * как префикс по отсортированному словарю, точное совпадение весит больше префиксного, слово в названии -
+ * больше, чем в описании, редкие слова - больше частых (idf). Кандидатов дает самое редкое слово запроса,
+ * остальные проверяются только по термам этих кандидатов, поэтому частые слова не перебираются целиком.
+ */
+public class TextIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.5;
+    // однобуквенный префикс совпал бы с большой частью словаря, поэтому такие слова ищутся только точно
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private final NavigableMap<String, IntHashMap<Integer>> postings = new TreeMap<>();
+    private final IntHashMap<Document> documents = new IntHashMap<>();
+
+    // Индексирует сущность заново; если текст не менялся (например, пересчитан эпик), ничего не делает
+    public void update(Task task) {
+        int id = task.getId();
+        Document previous = documents.get(id);
+        if (previous != null && Objects.equals(previous.title, task.getTitle())
+                && Objects.equals(previous.description, task.getDescription())) {
+            return;
+        }
+        if (previous != null) {
+            removePostings(id, previous);
+        }
+        Document document = new Document(task.getTitle(), task.getDescription());
+        documents.put(id, document);
+        for (int i = 0; i < document.terms.length; i++) {
+            postings.computeIfAbsent(document.terms[i], term -> new IntHashMap<>()).put(id, document.weights[i]);
+        }
+    }
+
+    public void remove(int id) {
+        Document previous = documents.remove(id);
+        if (previous != null) {
+            removePostings(id, previous);
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        documents.clear();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    // id до limit лучших совпадений: по убыванию релевантности, при равенстве - по возрастанию id.
+    // Сущность должна содержать все слова запроса (хотя бы как начало слова)
+    public int[] search(String query, int limit) {
+        List<String> words = tokenize(query).stream().distinct().collect(Collectors.toList());
+        if (words.isEmpty() || limit < 1) {
+            return new int[0];
+        }
+        String rarest = null;
+        long rarestCount = Long.MAX_VALUE;
+        for (String word : words) {
+            long count = candidateCount(word);
+            if (count == 0) {
+                return new int[0];
+            }
+            if (count < rarestCount) {
+                rarest = word;
+                rarestCount = count;
+            }
+        }
+
+        IntHashMap<double[]> scores = new IntHashMap<>();
+        for (Map.Entry<String, IntHashMap<Integer>> entry : prefixRange(rarest).entrySet()) {
+            double termScore = termScore(rarest, entry.getKey(), entry.getValue().size());
+            entry.getValue().forEachEntry((id, weight) -> {
+                double[] score = scores.get(id);
+                if (score == null) {
+                    scores.put(id, new double[]{weight * termScore});
+                } else {
+                    score[0] += weight * termScore;
+                }
+            });
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(Hit.WORST_FIRST);
+        String first = rarest;
+        scores.forEachEntry((id, score) -> {
+            double total = score[0];
+            Document document = documents.get(id);
+            for (String word : words) {
+                if (word.equals(first)) {
+                    continue;
+                }
+                double wordScore = document.score(word, this);
+                if (wordScore == 0) {
+                    return;
+                }
+                total += wordScore;
+            }
+            Hit hit = new Hit(id, total);
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (Hit.WORST_FIRST.compare(hit, best.peek()) > 0) {
+                best.poll();
+                best.add(hit);
+            }
+        });
+
+        int[] result = new int[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = best.poll().id;
+        }
+        return result;
+    }
+
+    // Число кандидатов от самого редкого слова запроса - оценка стоимости выборки через индекс
+    public long estimate(String query) {
+        long fewest = 0;
+        for (String word : tokenize(query)) {
+            long count = candidateCount(word);
+            fewest = fewest == 0 ? count : Math.min(fewest, count);
+            if (count == 0) {
+                return 0;
+            }
+        }
+        return fewest;
+    }
+
+    // Все сущности, содержащие все слова запроса, по возрастанию id
+    public int[] matching(String query) {
+        int[] ids = search(query, Integer.MAX_VALUE);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Содержит ли сущность все слова запроса - проверка кандидата, найденного через другой индекс
+    public boolean matches(int id, String query) {
+        Document document = documents.get(id);
+        if (document == null) {
+            return false;
+        }
+        for (String word : tokenize(query)) {
+            if (document.score(word, this) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Слова из букв и цифр в нижнем регистре
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private NavigableMap<String, IntHashMap<Integer>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix.length() < MIN_PREFIX_LENGTH ? prefix
+                : prefix + Character.MAX_VALUE, prefix.length() < MIN_PREFIX_LENGTH);
+    }
+
+    private long candidateCount(String word) {
+        long count = 0;
+        for (IntHashMap<Integer> ids : prefixRange(word).values()) {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    private double termScore(String word, String term, int documentFrequency) {
+        double idf = Math.log(1 + (double) documents.size() / documentFrequency);
+        return term.equals(word) ? idf : idf * PREFIX_FACTOR;
+    }
+
+    private void removePostings(int id, Document document) {
+        for (String term : document.terms) {
+            IntHashMap<Integer> ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static class Document {
+        final String title;
+        final String description;
+        // уникальные термы сущности и их веса: число вхождений с учетом поля
+        final String[] terms;
+        final int[] weights;
+
+        Document(String title, String description) {
+            this.title = title;
+            this.description = description;
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            tokenize(title).forEach(term -> counts.merge(term, TITLE_WEIGHT, Integer::sum));
+            tokenize(description).forEach(term -> counts.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+            terms = counts.keySet().toArray(new String[0]);
+            weights = counts.values().stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // вклад слова запроса в релевантность; 0 - слово не найдено
+        double score(String word, TextIndex index) {
+            double score = 0;
+            for (int i = 0; i < terms.length; i++) {
+                if (word.length() < MIN_PREFIX_LENGTH ? terms[i].equals(word) : terms[i].startsWith(word)) {
+                    score += weights[i] * index.termScore(word, terms[i], index.postings.get(terms[i]).size());
+                }
+            }
+            return score;
+        }
+    }
+
+    private static class Hit {
+        // в вершине очереди - худшее из лучших совпадений
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble((Hit hit) -> hit.score)
+                .thenComparing(Comparator.comparingInt((Hit hit) -> hit.id).reversed());
+
+        final int id;
+        final double score;
+
+        Hit(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
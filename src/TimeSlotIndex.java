@@ -0,0 +1,114 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Индекс занятых интервалов времени.
+ * Менеджер не допускает пересечений, поэтому интервалы ненулевой длины не перекрываются,
+ * и для проверки слота достаточно нескольких обращений к соседям в отсортированном наборе - O(log n).
+ */
+public class TimeSlotIndex {
+    private static final Comparator<Task> ORDER = Comparator.comparing(Task::getStartTime)
+            .thenComparingInt(Task::getId);
+
+    // интервалы ненулевой длины
+    private final NavigableSet<Task> intervals = new TreeSet<>(ORDER);
+    // задачи с нулевой продолжительностью - точки на шкале времени
+    private final NavigableSet<Task> instants = new TreeSet<>(ORDER);
+
+    public void add(Task task) {
+        if (isScheduled(task)) {
+            setFor(task).add(task);
+        }
+    }
+
+    public void remove(Task task) {
+        if (isScheduled(task)) {
+            setFor(task).remove(task);
+        }
+    }
+
+    // Заполняет пустой индекс из списка, отсортированного по времени начала и id, за O(n log n).
+    // Данные приходят в обход проверок менеджера (загрузка из файла), поэтому пересечения проверяются здесь:
+    // поиск соседей в overlaps верен, только пока интервалы не перекрываются
+    public void addAllSorted(List<Task> sorted) {
+        List<Task> sortedIntervals = new ArrayList<>();
+        List<Task> sortedInstants = new ArrayList<>();
+        for (Task task : sorted) {
+            if (isScheduled(task)) {
+                (task.getStartTime().equals(task.getEndTime()) ? sortedInstants : sortedIntervals).add(task);
+            }
+        }
+        for (int i = 1; i < sortedIntervals.size(); i++) {
+            Task previous = sortedIntervals.get(i - 1);
+            if (previous.getEndTime().isAfter(sortedIntervals.get(i).getStartTime())) {
+                throw overlap(previous, sortedIntervals.get(i));
+            }
+        }
+        InMemoryTaskManager.addAllSorted(intervals, sortedIntervals);
+        for (Task instant : sortedInstants) {
+            Task covering = covering(instant.getStartTime());
+            if (covering != null) {
+                intervals.clear();
+                throw overlap(covering, instant);
+            }
+        }
+        InMemoryTaskManager.addAllSorted(instants, sortedInstants);
+    }
+
+    public void clear() {
+        intervals.clear();
+        instants.clear();
+    }
+
+    public boolean overlaps(Task task) {
+        if (!isScheduled(task)) {
+            return false;
+        }
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+
+        // последний интервал, начавшийся раньше конца проверяемого, заканчивается позже всех остальных
+        Task candidate = intervals.lower(probe(end, Integer.MIN_VALUE));
+        if (candidate != null && candidate.getId() == task.getId()) {
+            candidate = intervals.lower(candidate);
+        }
+        if (candidate != null && candidate.getEndTime().isAfter(start)) {
+            return true;
+        }
+
+        // точка конфликтует, только если лежит строго внутри проверяемого интервала
+        Task instant = instants.higher(probe(start, Integer.MAX_VALUE));
+        if (instant != null && instant.getId() == task.getId()) {
+            instant = instants.higher(instant);
+        }
+        return instant != null && instant.getStartTime().isBefore(end);
+    }
+
+    // Интервал, который начался раньше time и закончился позже. Интервалы не перекрываются,
+    // поэтому это может быть только последний начавшийся до time
+    public Task covering(LocalDateTime time) {
+        Task candidate = intervals.lower(probe(time, Integer.MIN_VALUE));
+        return candidate != null && candidate.getEndTime().isAfter(time) ? candidate : null;
+    }
+
+    private NavigableSet<Task> setFor(Task task) {
+        return task.getStartTime().equals(task.getEndTime()) ? instants : intervals;
+    }
+
+    private static boolean isScheduled(Task task) {
+        return task.getStartTime() != null && task.getDuration() != null;
+    }
+
+    private static IllegalArgumentException overlap(Task first, Task second) {
+        return new IllegalArgumentException("Задача " + second.getId() + " пересекается по времени с задачей "
+                + first.getId());
+    }
+
+    private static Task probe(LocalDateTime time, int id) {
+        return new Task(id, null, null, null, null, time);
+    }
+}
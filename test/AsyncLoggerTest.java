@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLoggerTest {
+
+    @Test
+    void writesStructuredLinesAboveLevel() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        AsyncLogger logger = new AsyncLogger(new PrintStream(buffer, true, StandardCharsets.UTF_8), 16,
+                AsyncLogger.Level.INFO);
+        logger.debug("hidden");
+        logger.info("access", "method", "GET", "path", "/tasks", "status", 200);
+        logger.warn("slow", "note", "two words");
+        logger.close();
+
+        String output = buffer.toString(StandardCharsets.UTF_8);
+        assertFalse(output.contains("hidden"), "Записи ниже порога не должны выводиться");
+        assertTrue(output.contains("INFO access method=GET path=/tasks status=200"), output);
+        assertTrue(output.contains("note=\"two words\""), "Значения с пробелами должны быть в кавычках");
+    }
+
+    @Test
+    void accessLogSamplesSuccessfulRequests() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        AsyncLogger logger = new AsyncLogger(new PrintStream(buffer, true, StandardCharsets.UTF_8), 256,
+                AsyncLogger.Level.INFO);
+        AccessLogFilter filter = new AccessLogFilter(logger, 10);
+        HttpServer server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/ok", exchange -> {
+            exchange.sendResponseHeaders(200, 2);
+            exchange.getResponseBody().write("ok".getBytes(StandardCharsets.UTF_8));
+            exchange.close();
+        }).getFilters().add(filter);
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        }).getFilters().add(filter);
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.getAddress().getPort();
+            for (int i = 0; i < 20; i++) {
+                client.send(HttpRequest.newBuilder(URI.create(base + "/ok")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+            }
+            client.send(HttpRequest.newBuilder(URI.create(base + "/missing")).build(),
+                    HttpResponse.BodyHandlers.discarding());
+        } finally {
+            server.stop(0);
+            logger.close();
+        }
+
+        String output = buffer.toString(StandardCharsets.UTF_8);
+        assertEquals(2, output.split("path=/ok ", -1).length - 1, "Успешные запросы должны логироваться выборочно");
+        assertTrue(output.contains("path=/ok status=200 bytes=2"), output);
+        assertTrue(output.contains("path=/missing status=404"), "Ошибки должны логироваться всегда");
+    }
+}
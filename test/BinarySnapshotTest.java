@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void binarySnapshotRoundTrip() {
+        File file = new File(tempDir, "board.bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), file);
+        manager.setBinarySnapshot(true);
+
+        Task task = manager.createTask(new Task(0, "Задача", "Описание", TaskStatus.IN_PROGRESS,
+                Duration.ofMinutes(90), LocalDateTime.of(2024, 1, 15, 10, 0, 30)));
+        Epic epic = manager.createEpic(new Epic(0, "Epic", null));
+        Subtask subtask = manager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.DONE, epic.getId(),
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 16, 9, 0)));
+
+        assertTrue(BinarySnapshot.isBinary(file), "Снимок должен быть записан в двоичном формате");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        Task loadedTask = loaded.getTask(task.getId());
+        assertEquals("Задача", loadedTask.getTitle());
+        assertEquals(task.getStartTime(), loadedTask.getStartTime(), "Секунды времени начала не должны теряться");
+        assertEquals(task.getDuration(), loadedTask.getDuration());
+        assertNull(loaded.getEpic(epic.getId()).getDescription(), "null-строки должны сохраняться как null");
+        assertEquals(TaskStatus.DONE, loaded.getEpic(epic.getId()).getStatus());
+        assertEquals(subtask.getEpicId(), loaded.getSubtask(subtask.getId()).getEpicId());
+        assertEquals(2, loaded.getPrioritizedTasks().size());
+
+        loaded.createTask(new Task(0, "Еще задача", "Описание", TaskStatus.NEW));
+        assertTrue(BinarySnapshot.isBinary(file), "Загруженный менеджер должен сохранять формат файла");
+    }
+
+    @Test
+    void convertFromCsv() throws IOException {
+        File csv = new File(tempDir, "board.csv");
+        File binary = new File(tempDir, "board.bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), csv);
+        Epic epic = manager.createEpic(new Epic(0, "Epic", "Description"));
+        manager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.NEW, epic.getId()));
+
+        BinarySnapshot.convert(csv, binary);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(binary);
+        assertEquals(1, loaded.getEpicSubtasks(epic.getId()).size());
+    }
+
+    @Test
+    void truncatedSnapshotFails() throws IOException {
+        File file = new File(tempDir, "board.bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), file);
+        manager.setBinarySnapshot(true);
+        manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void corruptedStringLengthFails() throws IOException {
+        File file = new File(tempDir, "board.bin");
+        BinarySnapshot.write(file, List.of(new Task(1, "Task", "Description", TaskStatus.NEW)),
+                List.of(), List.of(), false);
+
+        // длина названия идет после заголовка (12 байт) и фиксированной части записи (29 байт)
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        bytes.putInt(41, Integer.MAX_VALUE - 8);
+        Files.write(file.toPath(), bytes.array());
+
+        assertThrows(ManagerSaveException.class, () -> BinarySnapshot.read(file, task -> { }),
+                "Длина строки больше остатка файла - снимок поврежден");
+    }
+}
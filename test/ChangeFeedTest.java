@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    @Test
+    void payloadOnlyForSubscribersWhoAskedForIt() throws InterruptedException {
+        ChangeFeed feed = new ChangeFeed(8, 10);
+        TaskManager manager = Managers.getDefault();
+        manager.addChangeListener(feed);
+        ChangeFeed.Subscription plain = feed.subscribe(false);
+        ChangeFeed.Subscription full = feed.subscribe(true);
+
+        Task task = manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+
+        String plainFrame = text(plain.next(1, TimeUnit.SECONDS));
+        String fullFrame = text(full.next(1, TimeUnit.SECONDS));
+        assertTrue(plainFrame.startsWith("id: " + task.getVersion() + "\nevent: created\n"), plainFrame);
+        assertTrue(plainFrame.contains("\"type\":\"task\",\"id\":" + task.getId()));
+        assertFalse(plainFrame.contains("\"data\""), "Без payload сущность не передается");
+        assertTrue(fullFrame.contains("\"title\":\"Task\""), "С payload событие должно содержать сущность");
+    }
+
+    @Test
+    void slowSubscriberGetsResyncInsteadOfBlocking() throws InterruptedException {
+        ChangeFeed feed = new ChangeFeed(2, 10);
+        TaskManager manager = Managers.getDefault();
+        manager.addChangeListener(feed);
+        ChangeFeed.Subscription subscription = feed.subscribe(false);
+
+        for (int i = 0; i < 6; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Description", TaskStatus.NEW));
+        }
+
+        assertEquals(2, subscription.getResyncs());
+        assertArrayEquals(ChangeFeed.RESYNC, subscription.next(1, TimeUnit.SECONDS),
+                "Переполненный буфер должен заменяться на resync");
+        assertTrue(text(subscription.next(1, TimeUnit.SECONDS)).contains("\"id\":6"),
+                "События после resync доставляются как обычно");
+    }
+
+    @Test
+    void subscribersAreLimitedAndClosed() throws InterruptedException {
+        ChangeFeed feed = new ChangeFeed(4, 1);
+        ChangeFeed.Subscription subscription = feed.subscribe(false);
+        assertNull(feed.subscribe(false), "Сверх предела подписка не выдается");
+
+        feed.close();
+        assertSame(ChangeFeed.CLOSED, subscription.next(1, TimeUnit.SECONDS));
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    private static String text(byte[] frame) {
+        assertNotNull(frame, "Событие должно прийти");
+        return new String(frame, StandardCharsets.UTF_8);
+    }
+}
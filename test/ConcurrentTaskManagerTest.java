@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager(Managers.getDefaultHistory());
+    }
+
+    @Test
+    void parallelCreateKeepsAllTasks() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> {
+                for (int j = 0; j < 500; j++) {
+                    taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+                    taskManager.getTasks();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(4000, taskManager.getTasks().size(), "Задачи не должны теряться при параллельной записи");
+    }
+
+    @Test
+    void overlapCheckIsAtomic() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicInteger created = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> {
+                try {
+                    taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW,
+                            Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0)));
+                    created.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // ожидаемо для всех потоков, кроме одного
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(1, created.get(), "Слот должна занять ровно одна задача");
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void readersSeeWholeOperations() throws Exception {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<?> writer = pool.submit(() -> {
+            for (int i = 0; i < 2000; i++) {
+                taskManager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.NEW, epic.getId()));
+            }
+        });
+        Future<?> reader = pool.submit(() -> {
+            while (!writer.isDone()) {
+                BoardSnapshot snapshot = taskManager.snapshot();
+                // подзадача и пересчитанный эпик публикуются одной операцией
+                assertEquals(snapshot.getSubtasks().size(), snapshot.getEpic(epic.getId()).getSubtaskIds().size());
+            }
+        });
+        writer.get();
+        reader.get();
+        pool.shutdown();
+
+        assertEquals(2000, taskManager.snapshot().getSubtasks().size());
+    }
+
+    @Test
+    void deletedTasksDoNotStayInHistory() throws Exception {
+        CountDownLatch adding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryHistoryManager history = new InMemoryHistoryManager() {
+            @Override
+            public void add(Task task) {
+                adding.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.add(task);
+            }
+        };
+        ConcurrentTaskManager manager = new ConcurrentTaskManager(history);
+        Task task = manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        Future<?> viewer = pool.submit(() -> manager.getTask(task.getId()));
+        assertTrue(adding.await(5, TimeUnit.SECONDS));
+        Future<?> deleter = pool.submit(() -> manager.deleteTask(task.getId()));
+        // удаление должно ждать, пока просмотр не допишет историю
+        assertThrows(TimeoutException.class, () -> deleter.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        viewer.get();
+        deleter.get();
+        pool.shutdown();
+
+        assertTrue(manager.getHistory().isEmpty(), "Просмотр не должен вернуть в историю удаленную задачу");
+    }
+
+    @Test
+    void getterReturnsCopy() {
+        Task task = taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+
+        Task viewed = taskManager.getTask(task.getId());
+        viewed.setStatus(TaskStatus.DONE);
+
+        assertEquals(TaskStatus.NEW, taskManager.getTask(task.getId()).getStatus(),
+                "Изменение полученного объекта не должно менять задачу менеджера");
+        assertEquals(List.of(task), taskManager.getHistory());
+    }
+
+    @Test
+    void listsReturnCopies() {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        taskManager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.NEW,
+                epic.getId()));
+
+        taskManager.getEpicSubtasks(epic.getId()).get(0).setStatus(TaskStatus.DONE);
+        taskManager.getSubtasksPage(0, 10).get(0).setTitle("Changed");
+
+        assertEquals(TaskStatus.NEW, taskManager.getSubtasksPage(0, 10).get(0).getStatus(),
+                "Подзадачи эпика должны отдаваться копиями");
+        assertEquals("Subtask", taskManager.getEpicSubtasks(epic.getId()).get(0).getTitle(),
+                "Страница должна отдаваться копиями");
+    }
+}
@@ -5,12 +5,14 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
 
@@ -41,13 +43,13 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
 
     @Test
     void saveLoadTasksWithData() {
-        Task task = new Task(0, "Test Task", "Test Description", "NEW");
+        Task task = new Task(0, "Test Task", "Test Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         Epic epic = new Epic(0, "Test Epic", "Test Epic Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask = new Subtask(0, "Test Subtask", "Test Subtask Description", "NEW", epic.getId());
+        Subtask subtask = new Subtask(0, "Test Subtask", "Test Subtask Description", TaskStatus.NEW, epic.getId());
         taskManager.createSubtask(subtask);
 
         FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
@@ -70,7 +72,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
 
     @Test
     void saveLoadTasksWithTimeData() {
-        Task task = new Task(0, "Task", "Description", "NEW",
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW,
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0));
         taskManager.createTask(task);
 
@@ -85,19 +87,19 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
 
     @Test
     void taskDataPersistance() {
-        Task task = new Task(0, "Original", "Original Desc", "NEW");
+        Task task = new Task(0, "Original", "Original Desc", TaskStatus.NEW);
         taskManager.createTask(task);
 
         task.setTitle("Changed");
         task.setDescription("Changed Desc");
-        task.setStatus("DONE");
+        task.setStatus(TaskStatus.DONE);
 
         FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
         Task loadedTask = loadedManager.getTask(task.getId());
 
         assertEquals("Original", loadedTask.getTitle(), "Название не сохранилось");
         assertEquals("Original Desc", loadedTask.getDescription(), "Описание не сохранилось");
-        assertEquals("NEW", loadedTask.getStatus(), "Статус не сохранился");
+        assertEquals(TaskStatus.NEW, loadedTask.getStatus(), "Статус не сохранился");
     }
 
     @Test
@@ -105,23 +107,23 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "NEW", epic.getId());
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "NEW", epic.getId());
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId());
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.NEW, epic.getId());
         taskManager.createSubtask(subtask1);
         taskManager.createSubtask(subtask2);
 
-        subtask1.setStatus("DONE");
+        subtask1.setStatus(TaskStatus.DONE);
         taskManager.updateSubtask(subtask1);
 
         FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
         Epic loadedEpic = loadedManager.getEpic(epic.getId());
 
-        assertEquals("IN_PROGRESS", loadedEpic.getStatus(), "Статус эпика должен быть IN_PROGRESS");
+        assertEquals(TaskStatus.IN_PROGRESS, loadedEpic.getStatus(), "Статус эпика должен быть IN_PROGRESS");
     }
 
     @Test
     void fileExistsAfterOperations() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
         assertTrue(testFile.exists(), "Файл должен существовать после создания задачи");
 
@@ -152,7 +154,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
                     Managers.getDefaultHistory(), readOnlyFile);
 
             assertThrows(ManagerSaveException.class, () -> {
-                Task task = new Task(0, "Task", "Description", "NEW");
+                Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
                 manager.createTask(task);
             }, "Должно выбрасываться исключение при сохранении в недоступный файл");
         } catch (IOException e) {
@@ -175,9 +177,31 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         }
     }
 
+    @Test
+    void loadWrapsMalformedRecords() throws IOException {
+        String header = "id,type,name,status,description,epic,duration,startTime\n";
+        Files.writeString(testFile.toPath(), header + "1,TASK,Task,NEW,Description,,60,yesterday\n");
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(testFile),
+                "Неверная дата - ошибка загрузки, а не DateTimeParseException");
+
+        Files.writeString(testFile.toPath(), header + "1,TASK,Task,NEW,Description,,60\n");
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(testFile),
+                "Неполная строка - ошибка загрузки, а не ArrayIndexOutOfBoundsException");
+    }
+
+    @Test
+    void loadRejectsOverlappingTasks() throws IOException {
+        Files.writeString(testFile.toPath(), "id,type,name,status,description,epic,duration,startTime\n"
+                + "1,TASK,First,NEW,Description,,60,2024-03-04T09:00\n"
+                + "2,TASK,Second,NEW,Description,,60,2024-03-04T09:30\n");
+
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(testFile),
+                "Пересекающиеся задачи в файле сломали бы проверку пересечений");
+    }
+
     @Test
     void saveLoadWithEmptyFields() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
@@ -185,4 +209,219 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
 
         assertNotNull(loadedTask, "Задача должна загрузиться даже с пустыми полями времени");
     }
-}
\ No newline at end of file
+
+    @Test
+    void journalReplayRestoresChanges() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 100);
+        Task task = manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+        Epic epic = manager.createEpic(new Epic(0, "Epic", "Description"));
+        Subtask subtask = manager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.DONE, epic.getId()));
+        manager.updateTask(new Task(task.getId(), "Task", "Description", TaskStatus.IN_PROGRESS));
+        long snapshotSize = testFile.length();
+
+        manager.deleteSubtask(subtask.getId());
+        manager.createSubtask(new Subtask(0, "Subtask 2", "Description", TaskStatus.IN_PROGRESS, epic.getId()));
+
+        File journal = new File(testFile.getPath() + ".journal");
+        assertTrue(journal.exists(), "Изменения должны дописываться в журнал");
+        assertEquals(snapshotSize, testFile.length(), "Снимок не должен переписываться на каждое изменение");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, 100);
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getTask(task.getId()).getStatus(), "Обновление из журнала не применилось");
+        assertNull(loaded.getSubtask(subtask.getId()), "Удаление из журнала не применилось");
+        assertEquals(1, loaded.getEpicSubtasks(epic.getId()).size());
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getEpic(epic.getId()).getStatus());
+    }
+
+    @Test
+    void journalReplayRecalculatesEpicWithoutSubtasks() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 100);
+        Epic epic = manager.createEpic(new Epic(0, "Epic", "Description"));
+        Subtask subtask = manager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.DONE,
+                epic.getId(), Duration.ofHours(1), LocalDateTime.of(2024, 3, 4, 9, 0)));
+        manager.save();
+
+        manager.deleteSubtask(subtask.getId());
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, 100);
+        Epic restored = loaded.getEpic(epic.getId());
+        assertEquals(TaskStatus.NEW, restored.getStatus(), "Эпик без подзадач после журнала - NEW");
+        assertNull(restored.getStartTime(), "Время эпика из снимка устарело");
+        assertEquals(Duration.ZERO, restored.getDuration());
+    }
+
+    @Test
+    void changeIsKeptWhenBackgroundFlushFailed() throws InterruptedException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 100,
+                DurabilityPolicy.everyMillis(20));
+        manager.createTask(new Task(0, "First", "Description", TaskStatus.NEW));
+        manager.flush();
+        File journal = new File(testFile.getPath() + ".journal");
+        assertTrue(journal.mkdir(), "Каталог на месте журнала - запись в журнал не удастся");
+        manager.createTask(new Task(0, "Second", "Description", TaskStatus.NEW));
+        Thread.sleep(300);
+
+        assertThrows(ManagerSaveException.class,
+                () -> manager.createTask(new Task(0, "Third", "Description", TaskStatus.NEW)),
+                "Ошибка фонового сброса сообщается следующей операции");
+        assertTrue(journal.delete());
+        manager.close();
+
+        assertEquals(3, FileBackedTaskManager.loadFromFile(testFile, 100).getTasks().size(),
+                "Изменение, о котором сообщили ошибкой, не должно теряться");
+    }
+
+    @Test
+    void operationsDoNotWaitForBackgroundFlush() throws Exception {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 100,
+                DurabilityPolicy.everyMillis(20));
+        manager.save();
+        // открытие канала на запись блокируется, пока его не откроют на чтение: фоновый сброс зависнет в записи
+        File journal = new File(testFile.getPath() + ".journal");
+        Process mkfifo = new ProcessBuilder("mkfifo", journal.getPath()).start();
+        assumeTrue(mkfifo.waitFor() == 0, "Нужен mkfifo");
+        manager.createTask(new Task(0, "First", "Description", TaskStatus.NEW));
+        Thread.sleep(200);
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> manager.createTask(new Task(0, "Second", "Description", TaskStatus.NEW)),
+                    "Операция не должна ждать запись на диск в фоновом потоке");
+        } finally {
+            // отпускаем фоновый поток
+            Files.readAllBytes(journal.toPath());
+        }
+        assertEquals(2, manager.getTasks().size());
+    }
+
+    @Test
+    void failedCheckpointKeepsSnapshotAndJournal() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 100);
+        manager.createTask(new Task(0, "First", "Description", TaskStatus.NEW));
+        manager.save();
+        manager.createTask(new Task(0, "Second", "Description", TaskStatus.NEW));
+        File journal = new File(testFile.getPath() + ".journal");
+        assertTrue(journal.exists());
+
+        // запись снимка обрывается на середине
+        assertThrows(IOException.class, () -> FileBackedTaskManager.writeAtomically(testFile, false, out -> {
+            out.write("id,type".getBytes());
+            throw new IOException("диск заполнен");
+        }));
+
+        assertTrue(journal.exists(), "Журнал удаляется только после записи снимка");
+        assertFalse(new File(testFile.getPath() + ".tmp").exists(), "Временный файл убирается после сбоя");
+        assertEquals(2, FileBackedTaskManager.loadFromFile(testFile, 100).getTasks().size(),
+                "Прежний снимок и журнал должны остаться целыми");
+    }
+
+    @Test
+    void checkpointTruncatesJournal() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 3);
+        Epic epic = manager.createEpic(new Epic(0, "Epic", "Description"));
+        manager.createSubtask(new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId()));
+        manager.createSubtask(new Subtask(0, "Subtask 2", "Description", TaskStatus.NEW, epic.getId()));
+        manager.deleteEpic(epic.getId());
+
+        assertFalse(new File(testFile.getPath() + ".journal").exists(), "После контрольной точки журнал очищается");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, 3);
+        assertTrue(loaded.getEpics().isEmpty());
+        assertTrue(loaded.getSubtasks().isEmpty(), "Подзадачи удаленного эпика не должны восстановиться");
+    }
+
+    @Test
+    void batchedPolicyCoalescesWrites() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 0,
+                DurabilityPolicy.everyOperations(3));
+        manager.createTask(new Task(0, "Task 1", "Description", TaskStatus.NEW));
+        manager.createTask(new Task(0, "Task 2", "Description", TaskStatus.NEW));
+        assertEquals(0, testFile.length(), "До порога изменения не должны попадать на диск");
+
+        manager.createTask(new Task(0, "Task 3", "Description", TaskStatus.NEW));
+        assertEquals(3, FileBackedTaskManager.loadFromFile(testFile).getTasks().size());
+    }
+
+    @Test
+    void intervalPolicyFlushesOnDemand() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 100,
+                DurabilityPolicy.everyMillis(60_000).withFsync());
+        Task task = manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+        manager.updateTask(new Task(task.getId(), "Task", "Description", TaskStatus.DONE));
+        assertEquals(0, testFile.length(), "Сброс по таймеру еще не наступил");
+
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, 100);
+        assertEquals(TaskStatus.DONE, loaded.getTask(task.getId()).getStatus(), "close должен дописать все изменения");
+    }
+
+    @Test
+    void largeFileLoadsInParallel() throws IOException {
+        StringBuilder csv = new StringBuilder("id,type,name,status,description,epic,duration,startTime\n");
+        csv.append("1,EPIC,Epic,NEW,Description,,,\n");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        int count = 30_000;
+        for (int id = 2; id < count; id++) {
+            String type = id % 2 == 0 ? "TASK" : "SUBTASK";
+            String epic = id % 2 == 0 ? "" : "1";
+            csv.append(id).append(',').append(type).append(",Задача ").append(id).append(",DONE,Описание,")
+                    .append(epic).append(",30,").append(start.plusHours(count - id)).append('\n');
+        }
+        Files.writeString(testFile.toPath(), csv.toString());
+        assertTrue(testFile.length() >= 1 << 20, "Файл должен быть достаточно большим для параллельной загрузки");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+
+        assertEquals(count / 2 - 1, loaded.getTasks().size());
+        assertEquals(count / 2 - 1, loaded.getSubtasks().size());
+        assertEquals(count - 2, loaded.getPrioritizedTasks().size());
+        assertEquals(count - 1, loaded.getPrioritizedTasks().get(0).getId(), "Индекс должен быть отсортирован по времени");
+        assertEquals(TaskStatus.DONE, loaded.getEpic(1).getStatus());
+        assertEquals(Duration.ofMinutes(30L * (count / 2 - 1)), loaded.getEpic(1).getDuration());
+        assertThrows(IllegalArgumentException.class, () -> loaded.createTask(new Task(0, "Task", "Description", TaskStatus.NEW,
+                Duration.ofHours(2), start.plusHours(10))), "Индекс пересечений должен быть заполнен");
+        assertEquals(count, loaded.createTask(new Task(0, "Task", "Description", TaskStatus.NEW)).getId());
+    }
+
+    @Test
+    void batchIsPersistedAsOneOperation() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 0,
+                DurabilityPolicy.everyOperations(2));
+        manager.createAll(List.of(new Task(0, "Task 1", "Description", TaskStatus.NEW),
+                new Task(0, "Task 2", "Description", TaskStatus.NEW)));
+        assertEquals(0, testFile.length(), "Пакет должен считаться одной операцией");
+
+        manager.deleteAll(List.of(1));
+        assertEquals(1, FileBackedTaskManager.loadFromFile(testFile).getTasks().size());
+    }
+
+    @Test
+    void transactionIsPersistedAsOneOperation() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), testFile, 0,
+                DurabilityPolicy.everyOperations(2));
+        manager.inTransaction(() -> {
+            manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+            Epic epic = manager.createEpic(new Epic(0, "Epic", "Description"));
+            return manager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.NEW, epic.getId()));
+        });
+        assertEquals(0, testFile.length(), "Транзакция должна считаться одной операцией");
+
+        manager.deleteTask(1);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(0, loaded.getTasks().size());
+        assertEquals(1, loaded.getSubtasks().size());
+    }
+
+    @Test
+    void statusIndexIsRebuiltOnLoad() {
+        taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.DONE));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        taskManager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.IN_PROGRESS, epic.getId()));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(1, loaded.getTasksByStatus(TaskStatus.DONE, 0, 10).size());
+        assertEquals(1, loaded.getSubtasksByStatus(TaskStatus.IN_PROGRESS, 0, 10).size());
+        assertEquals(1, loaded.getEpicsByStatus(TaskStatus.IN_PROGRESS, 0, 10).size());
+    }
+}
@@ -1,4 +1,6 @@
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +10,14 @@ import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,7 +41,7 @@ class HttpTaskServerTest {
     @Test
     void testGetTasks() throws IOException {
         // Добавляем тестовую задачу
-        Task task = new Task(0, "Test Task", "Test Description", "NEW");
+        Task task = new Task(0, "Test Task", "Test Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         // Отправляем GET запрос
@@ -53,7 +63,7 @@ class HttpTaskServerTest {
     @Test
     void testCreateTask() throws IOException {
         // задача для отправки
-        Task task = new Task(0, "New Task", "New Description", "NEW");
+        Task task = new Task(0, "New Task", "New Description", TaskStatus.NEW);
         String taskJson = gson.toJson(task);
 
         // POST запрос
@@ -73,10 +83,25 @@ class HttpTaskServerTest {
         assertEquals(1, taskManager.getTasks().size(), "Задача должна быть добавлена");
     }
 
+    @Test
+    void unknownStatusIsRejected() throws IOException {
+        String taskJson = "{\"title\":\"Task\",\"description\":\"D\",\"status\":\"FINISHED\"}";
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8081/tasks").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(taskJson.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(400, connection.getResponseCode(), "Неизвестный статус не должен превращаться в null");
+        assertTrue(taskManager.getTasks().isEmpty());
+    }
+
     @Test
     void testGetTaskById() throws IOException {
         // Добавляем задачу
-        Task task = new Task(0, "Test Task", "Test Description", "NEW");
+        Task task = new Task(0, "Test Task", "Test Description", TaskStatus.NEW);
         Task created = taskManager.createTask(task);
 
         // задача по ID
@@ -105,7 +130,7 @@ class HttpTaskServerTest {
     @Test
     void testDeleteTask() throws IOException {
         // + задачу
-        Task task = new Task(0, "Test Task", "Test Description", "NEW");
+        Task task = new Task(0, "Test Task", "Test Description", TaskStatus.NEW);
         Task created = taskManager.createTask(task);
 
         // - задачу
@@ -117,4 +142,408 @@ class HttpTaskServerTest {
 
         assertNull(taskManager.getTask(created.getId()), "Задача должна быть удалена");
     }
-}
\ No newline at end of file
+
+    @Test
+    void parallelRequestsOnWorkerPool() throws Exception {
+        TaskManager concurrentManager = Managers.getConcurrentTaskManager();
+        HttpTaskServer pooledServer = new HttpTaskServer(concurrentManager, ServerConfig.defaults()
+                .withPort(0)
+                .withBacklog(64)
+                .withBoundedPool(4, 16));
+        pooledServer.start();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> responses = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String json = gson.toJson(new Task(0, "Task " + i, "Description", TaskStatus.NEW));
+                responses.add(clients.submit(() -> {
+                    URL url = new URL("http://localhost:" + pooledServer.getPort() + "/tasks");
+                    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                    connection.setRequestMethod("POST");
+                    connection.setDoOutput(true);
+                    try (OutputStream os = connection.getOutputStream()) {
+                        os.write(json.getBytes(StandardCharsets.UTF_8));
+                    }
+                    return connection.getResponseCode();
+                }));
+            }
+            for (Future<Integer> response : responses) {
+                assertEquals(201, response.get(), "Каждый параллельный запрос должен создать задачу");
+            }
+        } finally {
+            clients.shutdown();
+            pooledServer.stop();
+        }
+        assertEquals(40, concurrentManager.getTasks().size(), "Ни одна задача не должна потеряться");
+    }
+
+    @Test
+    void prioritizedListIsStreamed() throws IOException {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 500; i++) {
+            taskManager.createSubtask(new Subtask(0, "Subtask " + i, "Description", TaskStatus.NEW, epic.getId(),
+                    Duration.ofMinutes(30), start.plusHours(i)));
+        }
+
+        URL url = new URL("http://localhost:8081/prioritized");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"), "Список должен отдаваться потоком");
+
+        try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            Subtask[] subtasks = gson.fromJson(reader, Subtask[].class);
+            assertEquals(500, subtasks.length);
+            assertEquals(epic.getId(), subtasks[0].getEpicId(), "Поля подзадачи должны сериализоваться");
+        }
+    }
+
+    @Test
+    void tasksArePagedByCursor() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task(0, "Task " + i, "Description", TaskStatus.NEW));
+        }
+
+        HttpURLConnection first = (HttpURLConnection) new URL("http://localhost:8081/tasks?limit=3").openConnection();
+        assertEquals(200, first.getResponseCode());
+        Task[] page;
+        try (Reader reader = new InputStreamReader(first.getInputStream(), StandardCharsets.UTF_8)) {
+            page = gson.fromJson(reader, Task[].class);
+        }
+        assertEquals(3, page.length);
+        String cursor = first.getHeaderField("X-Next-Cursor");
+        assertEquals(String.valueOf(page[2].getId()), cursor);
+
+        HttpURLConnection second = (HttpURLConnection) new URL("http://localhost:8081/tasks?limit=3&after="
+                + cursor).openConnection();
+        assertEquals(200, second.getResponseCode());
+        try (Reader reader = new InputStreamReader(second.getInputStream(), StandardCharsets.UTF_8)) {
+            assertEquals(2, gson.fromJson(reader, Task[].class).length);
+        }
+        assertNull(second.getHeaderField("X-Next-Cursor"), "На последней странице курсора быть не должно");
+
+        HttpURLConnection invalid = (HttpURLConnection) new URL("http://localhost:8081/tasks?limit=0").openConnection();
+        assertEquals(400, invalid.getResponseCode());
+    }
+
+    @Test
+    void largeListIsGzipped() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            taskManager.createTask(new Task(0, "Task " + i, "Description", TaskStatus.NEW));
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8081/tasks").openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(connection.getInputStream()),
+                StandardCharsets.UTF_8)) {
+            assertEquals(100, gson.fromJson(reader, Task[].class).length);
+        }
+    }
+
+    @Test
+    void smallResponseIsNotCompressed() throws IOException {
+        Task created = taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8081/tasks/"
+                + created.getId()).openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(200, connection.getResponseCode());
+        assertNull(connection.getHeaderField("Content-Encoding"), "Ответ меньше порога не должен сжиматься");
+        assertTrue(connection.getContentLength() > 0, "Короткий ответ должен уходить с Content-Length");
+    }
+
+    @Test
+    void prettyOutputOnlyOnRequest() throws IOException {
+        Task created = taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+
+        HttpURLConnection compact = (HttpURLConnection) new URL("http://localhost:8081/tasks/"
+                + created.getId()).openConnection();
+        HttpURLConnection pretty = (HttpURLConnection) new URL("http://localhost:8081/tasks/"
+                + created.getId() + "?pretty").openConnection();
+        String compactBody = new String(compact.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        String prettyBody = new String(pretty.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        assertFalse(compactBody.contains("\n"), "По умолчанию JSON должен быть компактным");
+        assertTrue(prettyBody.contains("\n"));
+        assertEquals(gson.fromJson(compactBody, Task.class).getTitle(), gson.fromJson(prettyBody, Task.class).getTitle());
+    }
+
+    @Test
+    void unchangedListReturnsNotModified() throws IOException {
+        taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+
+        HttpURLConnection first = (HttpURLConnection) new URL("http://localhost:8081/tasks").openConnection();
+        assertEquals(200, first.getResponseCode());
+        first.getInputStream().readAllBytes();
+        String etag = first.getHeaderField("ETag");
+        assertNotNull(etag, "Ответ должен содержать ETag");
+
+        HttpURLConnection repeated = (HttpURLConnection) new URL("http://localhost:8081/tasks").openConnection();
+        repeated.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, repeated.getResponseCode(), "Неизмененный список не должен отдаваться повторно");
+
+        taskManager.createTask(new Task(0, "Task 2", "Description", TaskStatus.NEW));
+        HttpURLConnection changed = (HttpURLConnection) new URL("http://localhost:8081/tasks").openConnection();
+        changed.setRequestProperty("If-None-Match", etag);
+        assertEquals(200, changed.getResponseCode());
+        assertNotEquals(etag, changed.getHeaderField("ETag"));
+    }
+
+    @Test
+    void cachedEpicFollowsSubtaskChanges() throws IOException {
+        HttpTaskServer cachingServer = new HttpTaskServer(taskManager, ServerConfig.defaults()
+                .withPort(0)
+                .withResponseCache(1 << 20, true));
+        cachingServer.start();
+        try {
+            Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+            String url = "http://localhost:" + cachingServer.getPort() + "/epics/" + epic.getId();
+            assertEquals(TaskStatus.NEW, fetchEpic(url).getStatus());
+            assertEquals(TaskStatus.NEW, fetchEpic(url).getStatus());
+            assertEquals(1, cachingServer.getResponseCache().getHits(), "Повторный запрос должен взять ответ из кэша");
+
+            taskManager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.DONE, epic.getId()));
+            assertEquals(TaskStatus.DONE, fetchEpic(url).getStatus(), "Пересчет эпика должен сбросить кэш");
+        } finally {
+            cachingServer.stop();
+        }
+    }
+
+    @Test
+    void stopClosesFileBackedManager() throws Exception {
+        File file = File.createTempFile("server", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager fileManager = new FileBackedTaskManager(new InMemoryHistoryManager(), file, 0,
+                DurabilityPolicy.everyMillis(20));
+        HttpTaskServer fileServer = new HttpTaskServer(fileManager, ServerConfig.defaults().withPort(0));
+        fileServer.start();
+        fileManager.createTask(new Task(0, "Saved", "Description", TaskStatus.NEW));
+        fileServer.stop();
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getTasks().size(),
+                "Остановка сервера должна дописать изменения");
+
+        fileManager.createTask(new Task(0, "Late", "Description", TaskStatus.NEW));
+        Thread.sleep(200);
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getTasks().size(),
+                "После остановки сервера фоновый сброс менеджера не должен работать");
+    }
+
+    private Epic fetchEpic(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        assertEquals(200, connection.getResponseCode());
+        try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Epic.class);
+        }
+    }
+
+    @Test
+    void unsupportedMethodReturns405() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8081/epics/1").openConnection();
+        connection.setRequestMethod("DELETE");
+
+        assertEquals(405, connection.getResponseCode());
+        assertEquals("GET", connection.getHeaderField("Allow"));
+    }
+
+    @Test
+    void batchAppliesOperationsIndependently() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task existing = taskManager.createTask(new Task(0, "Existing", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), start));
+        String batch = "["
+                + "{\"op\":\"create\",\"type\":\"epic\",\"data\":{\"title\":\"Epic\",\"description\":\"D\"}},"
+                + "{\"op\":\"create\",\"type\":\"task\",\"data\":{\"title\":\"Clash\",\"description\":\"D\","
+                + "\"status\":\"NEW\",\"duration\":30,\"startTime\":\"2024-01-01T10:30:00\"}},"
+                + "{\"op\":\"create\",\"type\":\"subtask\",\"data\":{\"title\":\"Sub\",\"description\":\"D\","
+                + "\"status\":\"NEW\",\"epicId\":99}},"
+                + "{\"op\":\"delete\",\"type\":\"task\",\"id\":" + existing.getId() + "},"
+                + "{\"op\":\"rename\",\"type\":\"task\"}"
+                + "]";
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8081/batch").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(batch.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        String response;
+        try (InputStream in = connection.getInputStream()) {
+            response = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        JsonArray results = JsonParser.parseString(response).getAsJsonArray();
+        assertEquals(5, results.size());
+        assertEquals(201, results.get(0).getAsJsonObject().get("status").getAsInt());
+        assertEquals(406, results.get(1).getAsJsonObject().get("status").getAsInt(),
+                "Пересечение должно вернуть 406 только для своей операции");
+        assertEquals(404, results.get(2).getAsJsonObject().get("status").getAsInt());
+        assertEquals(200, results.get(3).getAsJsonObject().get("status").getAsInt());
+        assertEquals(400, results.get(4).getAsJsonObject().get("status").getAsInt());
+        assertEquals(1, taskManager.getEpics().size());
+        assertTrue(taskManager.getTasks().isEmpty(), "Остальные операции пакета должны примениться");
+    }
+
+    @Test
+    void batchChecksDoNotTouchHistory() throws IOException {
+        Task task = taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+        Task removed = taskManager.createTask(new Task(0, "Removed", "Description", TaskStatus.NEW));
+        String batch = "["
+                + "{\"op\":\"update\",\"type\":\"task\",\"data\":{\"id\":" + task.getId()
+                + ",\"title\":\"Renamed\",\"description\":\"D\",\"status\":\"DONE\"}},"
+                + "{\"op\":\"delete\",\"type\":\"task\",\"id\":" + removed.getId() + "}"
+                + "]";
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8081/batch").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(batch.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("Renamed", taskManager.getTasks().get(0).getTitle());
+        assertTrue(taskManager.getHistory().isEmpty(), "Проверка существования в пакете не является просмотром");
+    }
+
+    @Test
+    void eventsAreStreamedToSubscribers() throws Exception {
+        HttpTaskServer eventServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(0)
+                .withBoundedPool(4, 16).withEventStream(16, 4));
+        eventServer.start();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + eventServer.getPort()
+                    + "/events?payload").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/event-stream"));
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                assertEquals(": keepalive", reader.readLine());
+                Task task = taskManager.createTask(new Task(0, "Live", "Description", TaskStatus.NEW));
+
+                assertEquals("", reader.readLine());
+                assertEquals("id: " + task.getVersion(), reader.readLine());
+                assertEquals("event: created", reader.readLine());
+                String data = reader.readLine();
+                assertTrue(data.contains("\"title\":\"Live\""), data);
+            }
+        } finally {
+            eventServer.stop();
+        }
+        assertEquals(0, eventServer.getChangeFeed().getSubscriberCount(), "Остановка сервера закрывает подписки");
+    }
+
+    @Test
+    void subscribersDoNotExhaustWorkerPool() throws Exception {
+        HttpTaskServer eventServer = new HttpTaskServer(taskManager, ServerConfig.defaults().withPort(0)
+                .withBoundedPool(2, 1).withEventStream(16, 8));
+        eventServer.start();
+        List<HttpURLConnection> subscribers = new ArrayList<>();
+        try {
+            // подписчиков больше, чем потоков и мест в очереди пула
+            for (int i = 0; i < 5; i++) {
+                HttpURLConnection subscriber = (HttpURLConnection) new URL("http://localhost:"
+                        + eventServer.getPort() + "/events").openConnection();
+                subscriber.setReadTimeout(5000);
+                assertEquals(200, subscriber.getResponseCode());
+                subscribers.add(subscriber);
+            }
+
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + eventServer.getPort()
+                    + "/tasks").openConnection();
+            connection.setReadTimeout(5000);
+            assertEquals(200, connection.getResponseCode(), "Подписчики не должны занимать пул обработчиков");
+            assertEquals(5, eventServer.getChangeFeed().getSubscriberCount());
+        } finally {
+            subscribers.forEach(HttpURLConnection::disconnect);
+            eventServer.stop();
+        }
+    }
+
+    @Test
+    void tasksAreFilteredByStatus() throws IOException {
+        taskManager.createTask(new Task(0, "New", "Description", TaskStatus.NEW));
+        Task active = taskManager.createTask(new Task(0, "Active", "Description", TaskStatus.IN_PROGRESS));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8081/tasks?status=IN_PROGRESS")
+                .openConnection();
+        assertEquals(200, connection.getResponseCode());
+        try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            Task[] tasks = gson.fromJson(reader, Task[].class);
+            assertEquals(1, tasks.length);
+            assertEquals(active.getId(), tasks[0].getId());
+        }
+
+        HttpURLConnection invalid = (HttpURLConnection) new URL("http://localhost:8081/tasks?status=LATER")
+                .openConnection();
+        assertEquals(400, invalid.getResponseCode(), "Неизвестный статус - ошибка запроса");
+    }
+
+    @Test
+    void prioritizedRangeFilter() throws IOException {
+        LocalDateTime day = LocalDateTime.of(2024, 3, 4, 0, 0);
+        taskManager.createTask(new Task(0, "Before", "Description", TaskStatus.NEW, Duration.ofHours(2),
+                day.minusHours(1)));
+        Task inside = taskManager.createTask(new Task(0, "Inside", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), day.plusHours(9)));
+        String range = "http://localhost:8081/prioritized?from=" + day + "&to=" + day.plusDays(1);
+
+        assertEquals(List.of(inside.getId()), fetchIds(range));
+        assertEquals(2, fetchIds(range + "&straddling").size());
+
+        HttpURLConnection invalid = (HttpURLConnection) new URL("http://localhost:8081/prioritized?from=tomorrow")
+                .openConnection();
+        assertEquals(400, invalid.getResponseCode());
+    }
+
+    private List<Integer> fetchIds(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        assertEquals(200, connection.getResponseCode());
+        try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            List<Integer> ids = new ArrayList<>();
+            for (Task task : gson.fromJson(reader, Task[].class)) {
+                ids.add(task.getId());
+            }
+            return ids;
+        }
+    }
+
+    @Test
+    void listsAcceptQueryParameters() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 4, 9, 0);
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        Subtask late = taskManager.createSubtask(new Subtask(0, "Review code", "Description", TaskStatus.NEW,
+                epic.getId(), Duration.ofHours(1), start.plusHours(3)));
+        Subtask early = taskManager.createSubtask(new Subtask(0, "Review docs", "Description", TaskStatus.NEW,
+                epic.getId(), Duration.ofHours(1), start));
+        taskManager.createSubtask(new Subtask(0, "Deploy", "Description", TaskStatus.NEW,
+                epic.getId(), Duration.ofHours(1), start.plusHours(1)));
+        String subtasks = "http://localhost:8081/subtasks?epic=" + epic.getId();
+
+        assertEquals(List.of(late.getId(), early.getId()), fetchIds(subtasks + "&q=review"));
+        assertEquals(List.of(early.getId(), late.getId()), fetchIds(subtasks + "&q=review&order=start"));
+        assertEquals(List.of(early.getId()), fetchIds(subtasks + "&from=" + start + "&to=" + start.plusHours(1)));
+
+        HttpURLConnection page = (HttpURLConnection) new URL(subtasks + "&q=review&limit=1").openConnection();
+        assertEquals(200, page.getResponseCode());
+        assertEquals(String.valueOf(late.getId()), page.getHeaderField("X-Next-Cursor"));
+
+        HttpURLConnection invalid = (HttpURLConnection) new URL("http://localhost:8081/tasks?epic=1")
+                .openConnection();
+        assertEquals(400, invalid.getResponseCode(), "Отбор по эпику есть только у подзадач");
+    }
+
+    @Test
+    void searchReturnsRankedMatches() throws IOException {
+        taskManager.createTask(new Task(0, "Deploy", "After the review", TaskStatus.NEW));
+        Task review = taskManager.createTask(new Task(0, "Code review", "Check changes", TaskStatus.NEW));
+
+        assertEquals(List.of(review.getId()), fetchIds("http://localhost:8081/search?q=review&limit=1"));
+        assertEquals(2, fetchIds("http://localhost:8081/search?q=REV").size());
+
+        HttpURLConnection missing = (HttpURLConnection) new URL("http://localhost:8081/search").openConnection();
+        assertEquals(400, missing.getResponseCode());
+    }
+}
@@ -7,8 +7,8 @@ class InMemoryHistoryManagerTest {
     @Test
     void addTasksToHistory() {
         HistoryManager historyManager = Managers.getDefaultHistory();
-        Task task1 = new Task(1, "Task 1", "Description", "NEW");
-        Task task2 = new Task(2, "Task 2", "Description", "NEW");
+        Task task1 = new Task(1, "Task 1", "Description", TaskStatus.NEW);
+        Task task2 = new Task(2, "Task 2", "Description", TaskStatus.NEW);
 
         historyManager.add(task1);
         historyManager.add(task2);
@@ -23,7 +23,7 @@ class InMemoryHistoryManagerTest {
     @Test
     void removeDuplicates() {
         HistoryManager historyManager = Managers.getDefaultHistory();
-        Task task = new Task(1, "Task", "Description", "NEW");
+        Task task = new Task(1, "Task", "Description", TaskStatus.NEW);
 
         historyManager.add(task);
         historyManager.add(task);
@@ -38,9 +38,9 @@ class InMemoryHistoryManagerTest {
     @Test
     void removeFromBeginning() {
         HistoryManager historyManager = Managers.getDefaultHistory();
-        Task task1 = new Task(1, "Task 1", "Description", "NEW");
-        Task task2 = new Task(2, "Task 2", "Description", "NEW");
-        Task task3 = new Task(3, "Task 3", "Description", "NEW");
+        Task task1 = new Task(1, "Task 1", "Description", TaskStatus.NEW);
+        Task task2 = new Task(2, "Task 2", "Description", TaskStatus.NEW);
+        Task task3 = new Task(3, "Task 3", "Description", TaskStatus.NEW);
 
         historyManager.add(task1);
         historyManager.add(task2);
@@ -56,9 +56,9 @@ class InMemoryHistoryManagerTest {
     @Test
     void removeFromMiddle() {
         HistoryManager historyManager = Managers.getDefaultHistory();
-        Task task1 = new Task(1, "Task 1", "Description", "NEW");
-        Task task2 = new Task(2, "Task 2", "Description", "NEW");
-        Task task3 = new Task(3, "Task 3", "Description", "NEW");
+        Task task1 = new Task(1, "Task 1", "Description", TaskStatus.NEW);
+        Task task2 = new Task(2, "Task 2", "Description", TaskStatus.NEW);
+        Task task3 = new Task(3, "Task 3", "Description", TaskStatus.NEW);
 
         historyManager.add(task1);
         historyManager.add(task2);
@@ -74,9 +74,9 @@ class InMemoryHistoryManagerTest {
     @Test
     void removeFromEnd() {
         HistoryManager historyManager = Managers.getDefaultHistory();
-        Task task1 = new Task(1, "Task 1", "Description", "NEW");
-        Task task2 = new Task(2, "Task 2", "Description", "NEW");
-        Task task3 = new Task(3, "Task 3", "Description", "NEW");
+        Task task1 = new Task(1, "Task 1", "Description", TaskStatus.NEW);
+        Task task2 = new Task(2, "Task 2", "Description", TaskStatus.NEW);
+        Task task3 = new Task(3, "Task 3", "Description", TaskStatus.NEW);
 
         historyManager.add(task1);
         historyManager.add(task2);
@@ -112,7 +112,7 @@ class InMemoryHistoryManagerTest {
     @Test
     void removeNonExistentTask() {
         HistoryManager historyManager = Managers.getDefaultHistory();
-        Task task = new Task(1, "Task", "Description", "NEW");
+        Task task = new Task(1, "Task", "Description", TaskStatus.NEW);
         historyManager.add(task);
 
         historyManager.remove(999);
@@ -124,9 +124,9 @@ class InMemoryHistoryManagerTest {
     @Test
     void historyOrderPreservation() {
         HistoryManager historyManager = Managers.getDefaultHistory();
-        Task task1 = new Task(1, "Task 1", "Description", "NEW");
-        Task task2 = new Task(2, "Task 2", "Description", "NEW");
-        Task task3 = new Task(3, "Task 3", "Description", "NEW");
+        Task task1 = new Task(1, "Task 1", "Description", TaskStatus.NEW);
+        Task task2 = new Task(2, "Task 2", "Description", TaskStatus.NEW);
+        Task task3 = new Task(3, "Task 3", "Description", TaskStatus.NEW);
 
         historyManager.add(task1);
         historyManager.add(task2);
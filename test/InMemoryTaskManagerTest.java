@@ -1,5 +1,7 @@
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
@@ -11,7 +13,7 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
     @Test
     void testInMemorySpecificFunctionality() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         // задача действительно хранится в памяти???
@@ -21,7 +23,7 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
     @Test
     void testHistoryManagerIntegration() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         taskManager.getTask(task.getId());
@@ -30,4 +32,32 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         assertEquals(1, history.size(), "Задача должна быть в истории");
         assertEquals(task, history.get(0), "История должна содержать задачу");
     }
-}
\ No newline at end of file
+
+    @Test
+    void plannerPicksMostSelectiveIndex() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 4, 9, 0);
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        for (int i = 0; i < 20; i++) {
+            taskManager.createSubtask(new Subtask(0, "Subtask " + i, i == 7 ? "Rare word" : "Description",
+                    i < 18 ? TaskStatus.NEW : TaskStatus.DONE, epic.getId(), Duration.ofMinutes(30),
+                    start.plusHours(i)));
+        }
+        Epic small = taskManager.createEpic(new Epic(0, "Small", "Description"));
+        taskManager.createSubtask(new Subtask(0, "Only", "Description", TaskStatus.NEW, small.getId()));
+
+        TaskQuery subtasks = TaskQuery.of(TaskType.SUBTASK);
+        assertEquals(TaskQuery.Access.ID_SCAN, taskManager.explain(subtasks), "Без условий - обход коллекции");
+        assertEquals(TaskQuery.Access.STATUS_INDEX, taskManager.explain(subtasks.withStatus(TaskStatus.DONE)));
+        assertEquals(TaskQuery.Access.EPIC_MEMBERS, taskManager.explain(subtasks.withEpic(small.getId())
+                .withStatus(TaskStatus.NEW)));
+        assertEquals(TaskQuery.Access.TEXT_INDEX, taskManager.explain(subtasks.withText("rare")
+                .withStatus(TaskStatus.DONE)));
+        assertEquals(TaskQuery.Access.TIME_INDEX, taskManager.explain(subtasks.withStatus(TaskStatus.DONE)
+                .withStartBetween(start, start.plusHours(1))));
+        assertEquals(TaskQuery.Access.ID_SCAN, taskManager.explain(TaskQuery.of(TaskType.EPIC)
+                .withStartBetween(start, null)), "Эпиков нет в приоритетном списке");
+
+        assertEquals(1, taskManager.query(subtasks.withText("rare").withStatus(TaskStatus.NEW)).size());
+        assertTrue(taskManager.query(subtasks.withText("rare").withStatus(TaskStatus.DONE)).isEmpty());
+    }
+}
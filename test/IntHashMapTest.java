@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashMapTest {
+
+    @Test
+    void putGetRemove() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(1, "one");
+        map.put(2, "two");
+
+        assertEquals("one", map.get(1));
+        assertEquals("one", map.put(1, "uno"), "put должен вернуть прежнее значение");
+        assertEquals("uno", map.remove(1));
+        assertNull(map.get(1), "Удаленный ключ не должен находиться");
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeKeepsCollidingKeysReachable() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        // ключи, кратные 65536, попадают в одну ячейку и выстраиваются в цепочку
+        for (int i = 0; i < 10; i++) {
+            map.put(i * 65536, i);
+        }
+        map.remove(3 * 65536);
+
+        for (int i = 0; i < 10; i++) {
+            if (i == 3) {
+                assertFalse(map.containsKey(i * 65536));
+            } else {
+                assertEquals(i, map.get(i * 65536), "Ключ потерялся после удаления соседа");
+            }
+        }
+    }
+
+    @Test
+    void growsAndIteratesAllValues() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        for (int i = 1; i <= 1000; i++) {
+            map.put(i, i);
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+        assertEquals(1000, map.values().size());
+        assertEquals(1000, keys.size());
+        assertEquals(1, keys.get(0), "Последовательные id обходятся по порядку");
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSortedSetTest {
+
+    @Test
+    void keepsOrderAndIgnoresDuplicates() {
+        IntSortedSet set = new IntSortedSet();
+        set.add(5);
+        set.add(1);
+        set.add(3);
+        set.add(3);
+
+        assertEquals(List.of(1, 3, 5), set.asList(), "Элементы должны храниться по возрастанию без повторов");
+    }
+
+    @Test
+    void removeAndContains() {
+        IntSortedSet set = new IntSortedSet();
+        for (int i = 1; i <= 5; i++) {
+            set.add(i);
+        }
+
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(3), "Повторное удаление должно вернуть false");
+        assertFalse(set.contains(3));
+        assertTrue(set.asList().contains(4));
+        assertEquals(4, set.size());
+    }
+
+    @Test
+    void largeSetMatchesTreeSet() {
+        IntSortedSet set = new IntSortedSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(7);
+        // монотонные id, затем вставки и удаления в середине - с делением и удалением блоков
+        for (int i = 1; i <= 3000; i++) {
+            set.add(i * 2);
+            expected.add(i * 2);
+        }
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(8000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertEquals(new ArrayList<>(expected), set.asList());
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(set.asList()),
+                "Итератор должен обходить блоки по порядку");
+        for (int probe : new int[]{-1, 0, 777, 4001, 7999, 9000}) {
+            assertEquals(expected.headSet(probe, true).size(), set.indexAfter(probe));
+            assertEquals(expected.contains(probe), set.contains(probe));
+        }
+        assertEquals(expected.last(), set.get(set.size() - 1));
+    }
+
+    @Test
+    void forEachAfterStartsAfterValueAndStops() {
+        IntSortedSet set = new IntSortedSet();
+        for (int i = 1; i <= 2000; i++) {
+            set.add(i);
+        }
+        List<Integer> visited = new ArrayList<>();
+
+        set.forEachAfter(1500, value -> visited.add(value) && visited.size() < 3);
+
+        assertEquals(List.of(1501, 1502, 1503), visited, "Обход должен начаться после значения и остановиться");
+        set.forEachAfter(Integer.MAX_VALUE, value -> fail("После MAX_VALUE элементов нет"));
+    }
+}
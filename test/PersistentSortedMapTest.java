@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentSortedMapTest {
+
+    @Test
+    void previousVersionsStayIntact() {
+        PersistentSortedMap<Integer, String> empty = PersistentSortedMap.empty();
+        PersistentSortedMap<Integer, String> first = empty.put(2, "b").put(1, "a");
+        PersistentSortedMap<Integer, String> second = first.put(3, "c").put(1, "A").remove(2);
+
+        assertEquals(List.of("a", "b"), first.values(), "Прежняя версия не должна меняться");
+        assertEquals(List.of("A", "c"), second.values());
+        assertTrue(empty.isEmpty());
+        assertSame(second, second.remove(7), "Удаление отсутствующего ключа не создает новую версию");
+    }
+
+    @Test
+    void matchesTreeMapOnRandomOperations() {
+        Random random = new Random(42);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 500; i += 2) {
+            keys.add(i);
+            expected.put(i, i);
+        }
+        PersistentSortedMap<Integer, Integer> map = PersistentSortedMap.fromSorted(Comparator.naturalOrder(),
+                keys, keys);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextBoolean()) {
+                expected.put(key, i);
+                map = map.put(key, i);
+            } else {
+                expected.remove(key);
+                map = map.remove(key);
+            }
+        }
+
+        assertEquals(new ArrayList<>(expected.values()), map.values(), "Значения должны идти по возрастанию ключей");
+        assertEquals(expected.size(), map.size());
+        int middle = expected.size() / 2;
+        assertEquals(new ArrayList<>(expected.values()).get(middle), map.values().get(middle));
+        assertEquals(expected.get(500), map.get(500));
+    }
+
+    @Test
+    void setKeepsComparatorOrder() {
+        PersistentSortedSet<String> set = PersistentSortedSet.empty(Comparator.comparing(String::length)
+                .thenComparing(Comparator.naturalOrder()));
+        PersistentSortedSet<String> updated = set.add("ccc").add("a").add("bb").remove("a");
+
+        assertEquals(List.of("bb", "ccc"), updated.asList());
+        assertTrue(updated.contains("bb"));
+        assertEquals(0, set.size());
+    }
+}
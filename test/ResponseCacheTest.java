@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    @Test
+    void hitOnlyForSameVersion() {
+        ResponseCache cache = new ResponseCache(1024, false);
+        cache.put("tasks/1", 5, bytes("{}"));
+
+        assertNotNull(cache.get("tasks/1", 5));
+        assertNull(cache.get("tasks/1", 6), "Запись для другой версии не должна отдаваться");
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByBytes() {
+        ResponseCache cache = new ResponseCache(200, false);
+        cache.put("tasks/1", 1, new byte[50]);
+        cache.put("tasks/2", 1, new byte[50]);
+        cache.get("tasks/1", 1);
+        cache.put("tasks/3", 1, new byte[50]);
+        cache.put("tasks/4", 1, new byte[50]);
+        cache.put("tasks/5", 1, new byte[50]);
+
+        assertTrue(cache.getBytes() <= 200);
+        assertNotNull(cache.get("tasks/1", 1), "Недавно прочитанная запись должна остаться");
+        assertNull(cache.get("tasks/2", 1), "Самая старая запись должна быть вытеснена");
+    }
+
+    @Test
+    void changesInvalidateAffectedEntries() {
+        ResponseCache cache = new ResponseCache(1024, false);
+        TaskManager manager = Managers.getDefault();
+        manager.addChangeListener(cache);
+        Epic epic = manager.createEpic(new Epic(0, "Epic", "Description"));
+        Task task = manager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+        cache.put(ResponseCache.key(TaskType.EPIC, epic.getId()), epic.getVersion(), bytes("{}"));
+        cache.put(ResponseCache.key(TaskType.TASK, task.getId()), task.getVersion(), bytes("{}"));
+        cache.put(ResponseCache.PRIORITIZED, 1, bytes("[]"));
+
+        manager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.DONE, epic.getId()));
+
+        assertEquals(1, cache.size(), "Должна остаться только запись незатронутой задачи");
+        manager.deleteTasks();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void precompressesLargeBodies() {
+        ResponseCache cache = new ResponseCache(1 << 20, true);
+        byte[] body = bytes("[" + "{\"title\":\"Task\"},".repeat(200) + "{}]");
+
+        ResponseCache.Entry entry = cache.put(ResponseCache.PRIORITIZED, 1, body);
+
+        assertNotNull(entry.getGzip());
+        assertTrue(entry.getGzip().length < body.length);
+        assertNull(cache.put("tasks/1", 1, bytes("{}")).getGzip(), "Короткие ответы не сжимаются");
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,52 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouterTest {
+    private final Router.Route list = (exchange, params) -> { };
+    private final Router.Route item = (exchange, params) -> { };
+    private final Router.Route nested = (exchange, params) -> { };
+    private final Router router = new Router()
+            .get("/tasks", list)
+            .get("/tasks/{id}", item)
+            .delete("/tasks/{id}", item)
+            .get("/epics/{id}/subtasks/{subtaskId}", nested);
+
+    @Test
+    void matchesLiteralAndParams() {
+        assertSame(list, router.match("GET", "/tasks").getRoute());
+
+        Router.Match match = router.match("GET", "/tasks/42");
+        assertSame(item, match.getRoute());
+        assertEquals(42, match.getParams()[0]);
+
+        Router.Match twoParams = router.match("GET", "/epics/7/subtasks/9");
+        assertSame(nested, twoParams.getRoute());
+        assertEquals(7, twoParams.getParams()[0]);
+        assertEquals(9, twoParams.getParams()[1]);
+    }
+
+    @Test
+    void rejectsNonNumericAndOverflowingIds() {
+        assertNull(router.match("GET", "/tasks/abc").getRoute());
+        assertNull(router.match("GET", "/tasks/-1").getRoute());
+        assertNull(router.match("GET", "/tasks/99999999999").getRoute(), "Значение вне int не должно совпадать");
+        assertNull(router.match("GET", "/tasks/1/extra").getAllow());
+    }
+
+    @Test
+    void rejectsEmptySegments() {
+        assertNull(router.match("GET", "/tasks/").getRoute(), "Завершающий слэш - другой путь");
+        assertNull(router.match("GET", "/tasks//5").getRoute(), "Пустой сегмент не должен пропускаться");
+        assertNull(router.match("GET", "//tasks").getRoute());
+        assertNull(router.match("GET", "/tasks//5").getAllow(), "Для пути с пустым сегментом нужен 404");
+    }
+
+    @Test
+    void reportsAllowedMethods() {
+        Router.Match match = router.match("POST", "/tasks/1");
+        assertNull(match.getRoute());
+        assertEquals("GET, DELETE", match.getAllow());
+        assertNull(router.match("POST", "/unknown").getAllow(), "Для неизвестного пути нужен 404, а не 405");
+    }
+}
@@ -18,7 +18,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void addAndFindTask() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         Task savedTask = taskManager.getTask(task.getId());
@@ -28,10 +28,10 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void notConflictIds() {
-        Task task1 = new Task(0, "Task 1", "Description", "NEW");
+        Task task1 = new Task(0, "Task 1", "Description", TaskStatus.NEW);
         taskManager.createTask(task1);
 
-        Task task2 = new Task(0, "Task 2", "Description", "NEW");
+        Task task2 = new Task(0, "Task 2", "Description", TaskStatus.NEW);
         taskManager.createTask(task2);
 
         assertNotEquals(task1.getId(), task2.getId(), "ID не должны конфликтовать");
@@ -39,7 +39,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void preserveTaskFields() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         Task savedTask = taskManager.getTask(task.getId());
@@ -50,13 +50,13 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void addToHistory() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask = new Subtask(0, "Subtask", "Description", "NEW", epic.getId());
+        Subtask subtask = new Subtask(0, "Subtask", "Description", TaskStatus.NEW, epic.getId());
         taskManager.createSubtask(subtask);
 
         taskManager.getTask(task.getId());
@@ -69,7 +69,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void removeFromHistory() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
         Epic epic = new Epic(0, "Epic", "Description");
@@ -90,13 +90,13 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "NEW", epic.getId());
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "NEW", epic.getId());
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId());
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.NEW, epic.getId());
 
         taskManager.createSubtask(subtask1);
         taskManager.createSubtask(subtask2);
 
-        assertEquals("NEW", epic.getStatus(), "Статус должен быть NEW когда все подзадачи NEW");
+        assertEquals(TaskStatus.NEW, epic.getStatus(), "Статус должен быть NEW когда все подзадачи NEW");
     }
 
     @Test
@@ -104,13 +104,13 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "DONE", epic.getId());
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "DONE", epic.getId());
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.DONE, epic.getId());
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.DONE, epic.getId());
 
         taskManager.createSubtask(subtask1);
         taskManager.createSubtask(subtask2);
 
-        assertEquals("DONE", epic.getStatus(), "Статус должен быть DONE когда все подзадачи DONE");
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус должен быть DONE когда все подзадачи DONE");
     }
 
     @Test
@@ -118,13 +118,13 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "NEW", epic.getId());
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "DONE", epic.getId());
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId());
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.DONE, epic.getId());
 
         taskManager.createSubtask(subtask1);
         taskManager.createSubtask(subtask2);
 
-        assertEquals("IN_PROGRESS", epic.getStatus(),
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(),
                 "Статус должен быть IN_PROGRESS когда подзадачи NEW и DONE");
     }
 
@@ -133,13 +133,13 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "IN_PROGRESS", epic.getId());
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "IN_PROGRESS", epic.getId());
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.IN_PROGRESS, epic.getId());
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.IN_PROGRESS, epic.getId());
 
         taskManager.createSubtask(subtask1);
         taskManager.createSubtask(subtask2);
 
-        assertEquals("IN_PROGRESS", epic.getStatus(),
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(),
                 "Статус должен быть IN_PROGRESS когда подзадачи IN_PROGRESS");
     }
 
@@ -148,8 +148,8 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "NEW", epic.getId());
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "NEW", epic.getId());
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId());
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.NEW, epic.getId());
 
         taskManager.createSubtask(subtask1);
         taskManager.createSubtask(subtask2);
@@ -173,8 +173,8 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "NEW", epic.getId());
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "NEW", epic.getId());
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId());
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.NEW, epic.getId());
 
         taskManager.createSubtask(subtask1);
         taskManager.createSubtask(subtask2);
@@ -187,8 +187,8 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void testDeleteAllTasks() {
-        Task task1 = new Task(0, "Task 1", "Description", "NEW");
-        Task task2 = new Task(0, "Task 2", "Description", "NEW");
+        Task task1 = new Task(0, "Task 1", "Description", TaskStatus.NEW);
+        Task task2 = new Task(0, "Task 2", "Description", TaskStatus.NEW);
         taskManager.createTask(task1);
         taskManager.createTask(task2);
 
@@ -201,8 +201,8 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "NEW", epic.getId());
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "NEW", epic.getId());
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId());
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.NEW, epic.getId());
         taskManager.createSubtask(subtask1);
         taskManager.createSubtask(subtask2);
 
@@ -213,16 +213,16 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void testUpdateTask() {
-        Task task = new Task(0, "Task", "Description", "NEW");
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW);
         taskManager.createTask(task);
 
-        Task updatedTask = new Task(task.getId(), "Updated Task", "Updated Description", "DONE");
+        Task updatedTask = new Task(task.getId(), "Updated Task", "Updated Description", TaskStatus.DONE);
         taskManager.updateTask(updatedTask);
 
         Task savedTask = taskManager.getTask(task.getId());
         assertEquals("Updated Task", savedTask.getTitle(), "Название не обновилось");
         assertEquals("Updated Description", savedTask.getDescription(), "Описание не обновилось");
-        assertEquals("DONE", savedTask.getStatus(), "Статус не обновился");
+        assertEquals(TaskStatus.DONE, savedTask.getStatus(), "Статус не обновился");
     }
 
     @Test
@@ -230,7 +230,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask = new Subtask(0, "Subtask", "Description", "NEW", epic.getId());
+        Subtask subtask = new Subtask(0, "Subtask", "Description", TaskStatus.NEW, epic.getId());
         taskManager.createSubtask(subtask);
 
         assertNotNull(taskManager.getEpic(epic.getId()), "Эпик должен существовать");
@@ -239,9 +239,9 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void TimeIntersection() {
-        Task task1 = new Task(0, "Task 1", "Description", "NEW",
+        Task task1 = new Task(0, "Task 1", "Description", TaskStatus.NEW,
                 Duration.ofHours(2), LocalDateTime.of(2024, 1, 15, 10, 0));
-        Task task2 = new Task(0, "Task 2", "Description", "NEW",
+        Task task2 = new Task(0, "Task 2", "Description", TaskStatus.NEW,
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 11, 0));
 
         taskManager.createTask(task1);
@@ -253,9 +253,9 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void NoTimeIntersection() {
-        Task task1 = new Task(0, "Task 1", "Description", "NEW",
+        Task task1 = new Task(0, "Task 1", "Description", TaskStatus.NEW,
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0));
-        Task task2 = new Task(0, "Task 2", "Description", "NEW",
+        Task task2 = new Task(0, "Task 2", "Description", TaskStatus.NEW,
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 12, 0));
 
         taskManager.createTask(task1);
@@ -265,9 +265,9 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void testPrioritiTasks() {
-        Task task1 = new Task(0, "Task 1", "Description", "NEW",
+        Task task1 = new Task(0, "Task 1", "Description", TaskStatus.NEW,
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 12, 0));
-        Task task2 = new Task(0, "Task 2", "Description", "NEW",
+        Task task2 = new Task(0, "Task 2", "Description", TaskStatus.NEW,
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0));
 
         taskManager.createTask(task1);
@@ -281,9 +281,9 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     void testTasksWithoutTime() {
-        Task taskWithTime = new Task(0, "Task with time", "Description", "NEW",
+        Task taskWithTime = new Task(0, "Task with time", "Description", TaskStatus.NEW,
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0));
-        Task taskWithoutTime = new Task(0, "Task without time", "Description", "NEW");
+        Task taskWithoutTime = new Task(0, "Task without time", "Description", TaskStatus.NEW);
 
         taskManager.createTask(taskWithTime);
         taskManager.createTask(taskWithoutTime);
@@ -298,9 +298,9 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Epic epic = new Epic(0, "Epic", "Description");
         taskManager.createEpic(epic);
 
-        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", "NEW", epic.getId(),
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId(),
                 Duration.ofHours(2), LocalDateTime.of(2024, 1, 15, 10, 0));
-        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", "NEW", epic.getId(),
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.NEW, epic.getId(),
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 13, 0));
 
         taskManager.createSubtask(subtask1);
@@ -312,4 +312,357 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(Duration.ofHours(3), savedEpic.getDuration(),
                 "Продолжительность эпика должна быть суммой продолжительностей подзадач");
     }
-}
\ No newline at end of file
+
+    @Test
+    void adjacentTasksDoNotIntersect() {
+        Task task1 = new Task(0, "Task 1", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0));
+        Task task2 = new Task(0, "Task 2", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 11, 0));
+        Task task3 = new Task(0, "Task 3", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 9, 0));
+
+        taskManager.createTask(task1);
+        assertDoesNotThrow(() -> taskManager.createTask(task2), "Задача может начинаться в момент окончания другой");
+        assertDoesNotThrow(() -> taskManager.createTask(task3), "Задача может заканчиваться в момент начала другой");
+    }
+
+    @Test
+    void containedTaskIntersects() {
+        Task outer = new Task(0, "Outer", "Description", TaskStatus.NEW,
+                Duration.ofHours(4), LocalDateTime.of(2024, 1, 15, 10, 0));
+        taskManager.createTask(outer);
+
+        Task inner = new Task(0, "Inner", "Description", TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 15, 12, 0));
+        Task wider = new Task(0, "Wider", "Description", TaskStatus.NEW,
+                Duration.ofHours(8), LocalDateTime.of(2024, 1, 15, 8, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createTask(inner));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createTask(wider));
+        assertEquals(1, taskManager.getPrioritizedTasks().size(), "Отклоненные задачи не должны попасть в список");
+    }
+
+    @Test
+    void updateIntoOccupiedSlotKeepsOldTime() {
+        Task task1 = new Task(0, "Task 1", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0));
+        Task task2 = new Task(0, "Task 2", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 12, 0));
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+
+        Task moved = new Task(task2.getId(), "Task 2", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 30));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(moved));
+
+        Task shifted = new Task(task2.getId(), "Task 2", "Description", TaskStatus.NEW,
+                Duration.ofHours(2), LocalDateTime.of(2024, 1, 15, 11, 30));
+        assertDoesNotThrow(() -> taskManager.updateTask(shifted), "Задача не должна пересекаться сама с собой");
+        assertEquals(2, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void epicRollupFollowsSubtaskChanges() {
+        Epic epic = new Epic(0, "Epic", "Description");
+        taskManager.createEpic(epic);
+
+        Subtask subtask1 = new Subtask(0, "Subtask 1", "Description", TaskStatus.NEW, epic.getId(),
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0));
+        Subtask subtask2 = new Subtask(0, "Subtask 2", "Description", TaskStatus.NEW, epic.getId(),
+                Duration.ofHours(2), LocalDateTime.of(2024, 1, 15, 14, 0));
+        taskManager.createSubtask(subtask1);
+        taskManager.createSubtask(subtask2);
+
+        taskManager.updateSubtask(new Subtask(subtask1.getId(), "Subtask 1", "Description", TaskStatus.DONE,
+                epic.getId(), Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 15, 9, 0)));
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 9, 0), epic.getStartTime());
+        assertEquals(Duration.ofMinutes(150), epic.getDuration());
+
+        taskManager.deleteSubtask(subtask2.getId());
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Осталась только выполненная подзадача");
+        assertEquals(LocalDateTime.of(2024, 1, 15, 9, 30), epic.getEndTime(),
+                "Время окончания должно пересчитаться после удаления самой поздней подзадачи");
+    }
+
+    @Test
+    void moveSubtaskBetweenEpics() {
+        Epic epic1 = new Epic(0, "Epic 1", "Description");
+        Epic epic2 = new Epic(0, "Epic 2", "Description");
+        taskManager.createEpic(epic1);
+        taskManager.createEpic(epic2);
+
+        Subtask subtask = new Subtask(0, "Subtask", "Description", TaskStatus.DONE, epic1.getId(),
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0));
+        taskManager.createSubtask(subtask);
+
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", TaskStatus.DONE,
+                epic2.getId(), Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0)));
+
+        assertEquals(TaskStatus.NEW, epic1.getStatus(), "Эпик без подзадач должен быть NEW");
+        assertNull(epic1.getStartTime());
+        assertEquals(Duration.ZERO, epic1.getDuration());
+        assertEquals(TaskStatus.DONE, epic2.getStatus());
+        assertEquals(Duration.ofHours(1), epic2.getDuration());
+    }
+
+    @Test
+    void createAllRejectsWholeBatchOnOverlap() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 15, 10, 0);
+        taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW, Duration.ofHours(1), start));
+
+        List<Task> batch = List.of(
+                new Task(0, "Task 1", "Description", TaskStatus.NEW, Duration.ofHours(1), start.plusHours(2)),
+                new Task(0, "Task 2", "Description", TaskStatus.NEW, Duration.ofHours(1), start.plusMinutes(30)));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createAll(batch));
+        assertEquals(1, taskManager.getTasks().size(), "Пакет не должен применяться частично");
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void createAllChecksOverlapInsideBatch() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 15, 10, 0);
+        List<Task> batch = List.of(
+                new Task(0, "Task 1", "Description", TaskStatus.NEW, Duration.ofHours(1), start),
+                new Task(0, "Task 2", "Description", TaskStatus.NEW, Duration.ofHours(1), start.plusMinutes(30)));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createAll(batch),
+                "Задачи одного пакета не должны пересекаться между собой");
+        assertTrue(taskManager.getTasks().isEmpty());
+    }
+
+    @Test
+    void batchCreateUpdateAndDelete() {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 15, 10, 0);
+        Task task = new Task(0, "Task", "Description", TaskStatus.NEW, Duration.ofHours(1), start);
+        Subtask subtask = new Subtask(0, "Subtask", "Description", TaskStatus.DONE, epic.getId(),
+                Duration.ofHours(1), start.plusHours(1));
+        List<Task> created = taskManager.createAll(List.of(task, subtask));
+
+        assertEquals(2, created.size());
+        assertNotEquals(task.getId(), subtask.getId(), "ID в пакете должны быть уникальными");
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика должен учитывать подзадачи пакета");
+
+        // задачи пакета меняются слотами - по отдельности такое обновление было бы отклонено
+        taskManager.updateAll(List.of(
+                new Task(task.getId(), "Task", "Description", TaskStatus.DONE, Duration.ofHours(1), start.plusHours(1)),
+                new Subtask(subtask.getId(), "Subtask", "Description", TaskStatus.DONE, epic.getId(),
+                        Duration.ofHours(1), start)));
+        assertEquals(start.plusHours(1), taskManager.getTask(task.getId()).getStartTime());
+        assertEquals(start, epic.getStartTime());
+
+        taskManager.deleteAll(List.of(task.getId(), epic.getId()));
+        assertTrue(taskManager.getTasks().isEmpty());
+        assertTrue(taskManager.getSubtasks().isEmpty(), "Подзадачи удаленного эпика должны удаляться");
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void rejectedBatchWithEpicKeepsTimeIndexes() {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 15, 10, 0);
+        Subtask subtask = taskManager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.NEW,
+                epic.getId(), Duration.ofHours(1), start));
+        Task first = taskManager.createTask(new Task(0, "First", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), start.plusHours(2)));
+        Task second = taskManager.createTask(new Task(0, "Second", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), start.plusHours(4)));
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateAll(List.of(
+                new Epic(epic.getId(), "Renamed", "Description"),
+                new Task(second.getId(), "Second", "Description", TaskStatus.NEW, Duration.ofHours(1),
+                        start.plusHours(2).plusMinutes(30)))));
+
+        assertEquals(List.of(subtask, first, second), taskManager.getPrioritizedTasks(),
+                "Откат пакета не должен добавлять эпик в приоритетный список");
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", TaskStatus.NEW,
+                epic.getId(), Duration.ofHours(1), start.plusMinutes(30)));
+        assertEquals(start.plusMinutes(30), taskManager.getSubtask(subtask.getId()).getStartTime(),
+                "Сдвиг подзадачи внутри окна эпика не пересекается с эпиком");
+    }
+
+    @Test
+    void pagesFollowIdOrder() {
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task(0, "Task " + i, "Description", TaskStatus.NEW));
+        }
+        taskManager.deleteTask(3);
+
+        List<Task> first = taskManager.getTasksPage(0, 2);
+        assertEquals(List.of(1, 2), first.stream().map(Task::getId).toList());
+        List<Task> second = taskManager.getTasksPage(2, 2);
+        assertEquals(List.of(4, 5), second.stream().map(Task::getId).toList(), "Удаленный id должен пропускаться");
+        assertTrue(taskManager.getTasksPage(5, 2).isEmpty());
+    }
+
+    @Test
+    void prioritizedPageStartsAfterCursor() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 15, 10, 0);
+        Task late = taskManager.createTask(new Task(0, "Late", "Description", TaskStatus.NEW, Duration.ofHours(1),
+                start.plusHours(2)));
+        Task early = taskManager.createTask(new Task(0, "Early", "Description", TaskStatus.NEW, Duration.ofHours(1), start));
+        Task middle = taskManager.createTask(new Task(0, "Middle", "Description", TaskStatus.NEW, Duration.ofHours(1),
+                start.plusHours(1)));
+
+        assertEquals(List.of(early, middle), taskManager.getPrioritizedPage(null, 0, 2));
+        assertEquals(List.of(late), taskManager.getPrioritizedPage(middle.getStartTime(), middle.getId(), 2));
+    }
+
+    @Test
+    void versionsFollowChanges() {
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        long epicsVersion = taskManager.getEpicsVersion();
+        Task task = taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+
+        assertEquals(epicsVersion, taskManager.getEpicsVersion(), "Создание задачи не меняет версию эпиков");
+        assertEquals(taskManager.getVersion(), taskManager.getTasksVersion());
+        assertEquals(taskManager.getTasksVersion(), task.getVersion());
+
+        long epicVersion = epic.getVersion();
+        Subtask subtask = taskManager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.NEW, epic.getId()));
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", TaskStatus.DONE, epic.getId()));
+        assertTrue(epic.getVersion() > epicVersion, "Изменение подзадачи меняет пересчитанный эпик");
+        assertTrue(taskManager.getEpicsVersion() > epicsVersion);
+
+        long version = taskManager.getVersion();
+        taskManager.getTask(task.getId());
+        assertEquals(version, taskManager.getVersion(), "Чтение не должно менять версию");
+        taskManager.deleteTasks();
+        assertTrue(taskManager.getTasksVersion() > version);
+    }
+
+    @Test
+    void statusIndexFollowsChanges() {
+        Task first = taskManager.createTask(new Task(0, "First", "Description", TaskStatus.NEW));
+        Task second = taskManager.createTask(new Task(0, "Second", "Description", TaskStatus.NEW));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.NEW,
+                epic.getId()));
+
+        taskManager.updateTask(new Task(first.getId(), "First", "Description", TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(second), taskManager.getTasksByStatus(TaskStatus.NEW, 0, 10));
+        assertEquals(List.of(first), taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS, 0, 10));
+
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", TaskStatus.DONE,
+                epic.getId()));
+        assertEquals(List.of(epic), taskManager.getEpicsByStatus(TaskStatus.DONE, 0, 10),
+                "Пересчитанный статус эпика должен попасть в индекс");
+        assertTrue(taskManager.getSubtasksByStatus(TaskStatus.NEW, 0, 10).isEmpty());
+
+        taskManager.deleteTask(second.getId());
+        taskManager.deleteSubtasks();
+        assertTrue(taskManager.getTasksByStatus(TaskStatus.NEW, 0, 10).isEmpty());
+        assertTrue(taskManager.getSubtasksByStatus(TaskStatus.DONE, 0, 10).isEmpty());
+        assertEquals(List.of(epic), taskManager.getEpicsByStatus(TaskStatus.NEW, 0, 10));
+    }
+
+    @Test
+    void prioritizedRangeWithAndWithoutStraddling() {
+        LocalDateTime day = LocalDateTime.of(2024, 3, 4, 0, 0);
+        Task before = taskManager.createTask(new Task(0, "Before", "Description", TaskStatus.NEW,
+                Duration.ofHours(2), day.minusHours(1)));
+        Task inside = taskManager.createTask(new Task(0, "Inside", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), day.plusHours(9)));
+        Task after = taskManager.createTask(new Task(0, "After", "Description", TaskStatus.NEW,
+                Duration.ofHours(2), day.plusHours(23)));
+        taskManager.createTask(new Task(0, "Next day", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), day.plusDays(1).plusHours(5)));
+
+        assertEquals(List.of(inside), taskManager.getPrioritizedInRange(day, day.plusDays(1), false));
+        assertEquals(List.of(before, inside, after), taskManager.getPrioritizedInRange(day, day.plusDays(1), true),
+                "С includeStraddling добавляются задачи, пересекающие границы");
+        assertEquals(List.of(before), taskManager.getPrioritizedInRange(null, day, true));
+        assertTrue(taskManager.getPrioritizedInRange(day.plusHours(10), day.plusHours(12), true).isEmpty());
+    }
+
+    @Test
+    void searchFollowsChanges() {
+        Task task = taskManager.createTask(new Task(0, "Release notes", "Write notes", TaskStatus.NEW));
+        Epic epic = taskManager.createEpic(new Epic(0, "Release", "Ship version 2"));
+        Subtask subtask = taskManager.createSubtask(new Subtask(0, "Build", "Release build", TaskStatus.NEW,
+                epic.getId()));
+
+        assertEquals(List.of(task, epic, subtask), taskManager.search("release", 10));
+        taskManager.updateTask(new Task(task.getId(), "Changelog", "Write notes", TaskStatus.NEW));
+        assertEquals(List.of(epic, subtask), taskManager.search("rel", 10));
+
+        taskManager.deleteEpics();
+        assertTrue(taskManager.search("release", 10).isEmpty(), "Удаленные сущности не должны находиться");
+        assertEquals(List.of(task), taskManager.search("notes", 10));
+    }
+
+    @Test
+    void queryCombinesClauses() {
+        LocalDateTime day = LocalDateTime.of(2024, 3, 4, 0, 0);
+        Epic epic = taskManager.createEpic(new Epic(0, "Release", "Description"));
+        Epic other = taskManager.createEpic(new Epic(0, "Other", "Description"));
+        Subtask late = taskManager.createSubtask(new Subtask(0, "Write notes", "Release notes", TaskStatus.NEW,
+                epic.getId(), Duration.ofHours(1), day.plusHours(5)));
+        Subtask early = taskManager.createSubtask(new Subtask(0, "Write docs", "User guide", TaskStatus.NEW,
+                epic.getId(), Duration.ofHours(1), day.plusHours(1)));
+        Subtask done = taskManager.createSubtask(new Subtask(0, "Write notes", "Old notes", TaskStatus.DONE,
+                epic.getId(), Duration.ofHours(1), day.plusHours(3)));
+        taskManager.createSubtask(new Subtask(0, "Write notes", "Elsewhere", TaskStatus.NEW,
+                other.getId(), Duration.ofHours(1), day.plusHours(7)));
+        taskManager.createTask(new Task(0, "Write notes", "Not a subtask", TaskStatus.NEW,
+                Duration.ofHours(1), day.plusHours(2)));
+
+        TaskQuery query = TaskQuery.of(TaskType.SUBTASK).withEpic(epic.getId());
+        assertEquals(List.of(late, early, done), taskManager.query(query));
+        assertEquals(List.of(late, early), taskManager.query(query.withStatus(TaskStatus.NEW)));
+        assertEquals(List.of(early, done, late), taskManager.query(query.withOrder(TaskQuery.Order.START)),
+                "Порядок по времени начала");
+        assertEquals(List.of(late, done), taskManager.query(query.withText("notes")));
+        assertEquals(List.of(done), taskManager.query(query.withStartBetween(day.plusHours(2), day.plusHours(5))),
+                "Окно по началу: [from, to)");
+        assertEquals(List.of(early), taskManager.query(query.withAfter(late.getId()).withLimit(1)),
+                "Курсор и размер страницы");
+        assertEquals(1, taskManager.query(TaskQuery.of(TaskType.TASK).withText("notes")).size(),
+                "Текстовый индекс общий, но тип отбирается");
+        assertTrue(taskManager.query(TaskQuery.of(TaskType.SUBTASK).withEpic(999)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> TaskQuery.of(TaskType.TASK).withEpic(epic.getId()));
+    }
+
+    @Test
+    void snapshotIsConsistentAndImmutable() {
+        Task task = taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 3, 4, 9, 0)));
+        Epic epic = taskManager.createEpic(new Epic(0, "Epic", "Description"));
+        BoardSnapshot before = taskManager.snapshot();
+        assertSame(before, taskManager.snapshot(), "Без изменений срез не пересоздается");
+
+        Subtask subtask = taskManager.createSubtask(new Subtask(0, "Subtask", "Description", TaskStatus.DONE,
+                epic.getId()));
+        taskManager.deleteTask(task.getId());
+        BoardSnapshot after = taskManager.snapshot();
+
+        assertEquals(List.of(task), before.getTasks(), "Прежний срез не должен меняться");
+        assertEquals(List.of(task), before.getPrioritizedTasks());
+        assertTrue(before.getSubtasks().isEmpty());
+        assertEquals(TaskStatus.NEW, before.getEpic(epic.getId()).getStatus(), "Эпик в срезе - копия на момент среза");
+        assertTrue(after.getTasks().isEmpty());
+        assertEquals(List.of(subtask), after.getSubtasks());
+        assertEquals(TaskStatus.DONE, after.getEpic(epic.getId()).getStatus());
+        assertEquals(taskManager.getVersion(), after.getVersion());
+        assertThrows(UnsupportedOperationException.class, () -> after.getSubtasks().add(subtask));
+    }
+
+    @Test
+    void snapshotHoldsCopiesOfTasks() {
+        Task task = taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 3, 4, 9, 0)));
+        BoardSnapshot snapshot = taskManager.snapshot();
+
+        // вызывающий код меняет свой объект, не сообщая менеджеру
+        task.setStatus(TaskStatus.DONE);
+        task.setStartTime(LocalDateTime.of(2024, 3, 5, 9, 0));
+
+        assertNotSame(task, snapshot.getTask(task.getId()), "Срез не должен ссылаться на рабочий объект");
+        assertEquals(TaskStatus.NEW, snapshot.getTask(task.getId()).getStatus());
+        assertEquals(LocalDateTime.of(2024, 3, 4, 9, 0), snapshot.getPrioritizedTasks().get(0).getStartTime());
+        assertSame(snapshot.getTask(task.getId()), snapshot.getPrioritizedTasks().get(0),
+                "Приоритетный список среза хранит те же копии");
+        assertSame(snapshot, taskManager.snapshot(), "Чтение среза ничего не пересобирает");
+    }
+}
@@ -1,35 +1,35 @@
-import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 class TaskTest {
 
     @Test
     void tasksSameIdEqual() {
-        Task task1 = new Task(1, "Task 1", "Description", "NEW");
-        Task task2 = new Task(1, "Task 2", "Another description", "DONE");
+        Task task1 = new Task(1, "Task 1", "Description", TaskStatus.NEW);
+        Task task2 = new Task(1, "Task 2", "Another description", TaskStatus.DONE);
         assertEquals(task1, task2, "Задачи с одинаковым id должны быть равны");
     }
 
     @Test
     void subtasksSameIdEqual() {
-        Subtask subtask1 = new Subtask(1, "Subtask 1", "Description", "NEW", 1);
-        Subtask subtask2 = new Subtask(1, "Subtask 2", "Another description", "DONE", 2);
+        Subtask subtask1 = new Subtask(1, "Subtask 1", "Description", TaskStatus.NEW, 1);
+        Subtask subtask2 = new Subtask(1, "Subtask 2", "Another description", TaskStatus.DONE, 2);
         assertEquals(subtask1, subtask2, "Подзадачи с одинаковым id должны быть равны");
     }
 
     @Test
     void taskNotEqualNull() {
-        Task task = new Task(1, "Task", "Description", "NEW");
+        Task task = new Task(1, "Task", "Description", TaskStatus.NEW);
         assertNotEquals(null, task, "Задача не должна быть равна null");
     }
 
     @Test
     void taskNotEqualDifferentClass() {
-        Task task = new Task(1, "Task", "Description", "NEW");
+        Task task = new Task(1, "Task", "Description", TaskStatus.NEW);
         String notTask = "Not a task";
         assertNotEquals(task, notTask, "Задача не должна быть равна объекту другого класса");
     }
@@ -37,8 +37,8 @@ class TaskTest {
     @Test
     void epicContainSubtaskIds() {
         Epic epic = new Epic(1, "Epic", "Description");
-        epic.addSubtaskId(2);
-        epic.addSubtaskId(3);
+        epic.attachSubtask(new Subtask(2, "Subtask 1", "Description", TaskStatus.NEW, 1));
+        epic.attachSubtask(new Subtask(3, "Subtask 2", "Description", TaskStatus.NEW, 1));
 
         assertEquals(2, epic.getSubtaskIds().size(), "Эпик должен содержать 2 ID подзадач");
         assertTrue(epic.getSubtaskIds().contains(2), "Эпик должен содержать ID подзадачи 2");
@@ -47,7 +47,7 @@ class TaskTest {
 
     @Test
     void subtaskHaveEpicId() {
-        Subtask subtask = new Subtask(1, "Subtask", "Description", "NEW", 5);
+        Subtask subtask = new Subtask(1, "Subtask", "Description", TaskStatus.NEW, 5);
         assertEquals(5, subtask.getEpicId(), "Подзадача должна иметь правильный epicId");
     }
 
@@ -55,7 +55,7 @@ class TaskTest {
     void testTaskEndTimeCalculation() {
         LocalDateTime startTime = LocalDateTime.of(2024, 1, 15, 10, 0);
         Duration duration = Duration.ofHours(2);
-        Task task = new Task(1, "Task", "Description", "NEW", duration, startTime);
+        Task task = new Task(1, "Task", "Description", TaskStatus.NEW, duration, startTime);
 
         LocalDateTime expectedEndTime = LocalDateTime.of(2024, 1, 15, 12, 0);
         assertEquals(expectedEndTime, task.getEndTime(), "Время окончания рассчитано неверно");
@@ -63,13 +63,13 @@ class TaskTest {
 
     @Test
     void testTaskEndTimeWithoutStartTime() {
-        Task task = new Task(1, "Task", "Description", "NEW");
+        Task task = new Task(1, "Task", "Description", TaskStatus.NEW);
         assertNull(task.getEndTime(), "Время окончания должно быть null при отсутствии времени начала");
     }
 
     @Test
     void testTaskEndTimeWithoutDuration() {
-        Task task = new Task(1, "Task", "Description", "NEW");
+        Task task = new Task(1, "Task", "Description", TaskStatus.NEW);
         task.setStartTime(LocalDateTime.now());
         assertNull(task.getEndTime(), "Время окончания должно быть null при отсутствии продолжительности");
     }
@@ -78,12 +78,13 @@ class TaskTest {
     void testEpicTimeCalculation() {
         Epic epic = new Epic(1, "Epic", "Description");
 
-        Subtask subtask1 = new Subtask(2, "Subtask 1", "Description", "NEW", 1,
+        Subtask subtask1 = new Subtask(2, "Subtask 1", "Description", TaskStatus.NEW, 1,
                 Duration.ofHours(2), LocalDateTime.of(2024, 1, 15, 10, 0));
-        Subtask subtask2 = new Subtask(3, "Subtask 2", "Description", "NEW", 1,
+        Subtask subtask2 = new Subtask(3, "Subtask 2", "Description", TaskStatus.NEW, 1,
                 Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 13, 0));
 
-        epic.calculateTimes(List.of(subtask1, subtask2));
+        epic.attachSubtask(subtask1);
+        epic.attachSubtask(subtask2);
 
         assertEquals(LocalDateTime.of(2024, 1, 15, 10, 0), epic.getStartTime(),
                 "Время начала эпика должно быть временем начала самой ранней подзадачи");
@@ -96,7 +97,9 @@ class TaskTest {
     @Test
     void testEpicTimeCalculationWithEmptySubtasks() {
         Epic epic = new Epic(1, "Epic", "Description");
-        epic.calculateTimes(List.of());
+        epic.attachSubtask(new Subtask(2, "Subtask", "Description", TaskStatus.NEW, 1,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 15, 10, 0)));
+        epic.detachSubtask(2);
 
         assertNull(epic.getStartTime(), "Время начала должно быть null при отсутствии подзадач");
         assertNull(epic.getEndTime(), "Время окончания должно быть null при отсутствии подзадач");
@@ -106,8 +109,8 @@ class TaskTest {
 
     @Test
     void testHashCodeConsistency() {
-        Task task1 = new Task(1, "Task", "Description", "NEW");
-        Task task2 = new Task(1, "Task", "Description", "NEW");
+        Task task1 = new Task(1, "Task", "Description", TaskStatus.NEW);
+        Task task2 = new Task(1, "Task", "Description", TaskStatus.NEW);
 
         assertEquals(task1.hashCode(), task2.hashCode(),
                 "Хэш-коды должны быть одинаковыми для задач с одинаковым id");
@@ -115,11 +118,35 @@ class TaskTest {
 
     @Test
     void testToStringFormat() {
-        Task task = new Task(1, "Test Task", "Test Description", "NEW");
+        Task task = new Task(1, "Test Task", "Test Description", TaskStatus.NEW);
         String toString = task.toString();
 
         assertTrue(toString.contains("id=1"), "toString должен содержать id");
         assertTrue(toString.contains("title='Test Task'"), "toString должен содержать title");
         assertTrue(toString.contains("status='NEW'"), "toString должен содержать status");
     }
-}
\ No newline at end of file
+
+    @Test
+    void epicSubtaskIdsSurviveJson() {
+        Epic epic = new Epic(1, "Epic", "Description");
+        epic.attachSubtask(new Subtask(2, "Subtask 1", "Description", TaskStatus.NEW, 1));
+        epic.attachSubtask(new Subtask(3, "Subtask 2", "Description", TaskStatus.NEW, 1));
+
+        Epic restored = GsonFactory.createGson().fromJson(GsonFactory.createGson().toJson(epic), Epic.class);
+
+        assertEquals(List.of(2, 3), restored.getSubtaskIds(), "Id подзадач должны сериализоваться массивом");
+    }
+
+    @Test
+    void epicCopyKeepsSubtaskIdsOfItsMoment() {
+        Epic epic = new Epic(1, "Epic", "Description");
+        epic.attachSubtask(new Subtask(2, "Subtask 1", "Description", TaskStatus.NEW, 1));
+        Epic copy = epic.copy();
+
+        epic.attachSubtask(new Subtask(3, "Subtask 2", "Description", TaskStatus.NEW, 1));
+        epic.detachSubtask(2);
+
+        assertEquals(List.of(2), copy.getSubtaskIds(), "Копия эпика не должна видеть последующие изменения");
+        assertEquals(List.of(3), epic.getSubtaskIds());
+    }
+}
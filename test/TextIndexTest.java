@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextIndexTest {
+
+    @Test
+    void tokenizesLettersAndDigitsInLowerCase() {
+        assertEquals(List.of("починить", "api", "v2", "сегодня"), TextIndex.tokenize("Починить API-v2, сегодня!"));
+    }
+
+    @Test
+    void titleMatchesRankAboveDescriptionMatches() {
+        TextIndex index = new TextIndex();
+        index.update(new Task(1, "Обновить документацию", "Раздел про релиз", TaskStatus.NEW));
+        index.update(new Task(2, "Подготовить релиз", "Собрать сборку", TaskStatus.NEW));
+        index.update(new Task(3, "Позвонить клиенту", "Без связи с релизом", TaskStatus.NEW));
+
+        assertArrayEquals(new int[]{2, 1, 3}, index.search("релиз", 10),
+                "Название выше описания, точное совпадение выше префиксного");
+        assertEquals(3, index.search("рел", 10).length, "Слово запроса ищется как префикс");
+        assertArrayEquals(new int[]{2}, index.search("релиз сбор", 10), "Нужны все слова запроса");
+        assertArrayEquals(new int[]{2}, index.search("рел", 1));
+    }
+
+    @Test
+    void updateAndRemoveReplacePostings() {
+        TextIndex index = new TextIndex();
+        index.update(new Task(1, "Старое название", "", TaskStatus.NEW));
+        index.update(new Task(1, "Новое название", "", TaskStatus.NEW));
+
+        assertEquals(0, index.search("старое", 10).length);
+        assertArrayEquals(new int[]{1}, index.search("новое", 10));
+
+        index.remove(1);
+        assertEquals(0, index.search("название", 10).length);
+        assertEquals(0, index.size());
+    }
+}